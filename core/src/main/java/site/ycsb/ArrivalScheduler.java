@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A single arrival schedule shared by all client threads, for open-loop load generation.
+ *
+ * Arrivals follow either a fixed-rate or a Poisson process at the configured target throughput,
+ * independent of the number of client threads. Each client thread claims the next arrival, waits
+ * until it is due and then executes one operation with the arrival time as its intended start time.
+ * When all threads are busy the claimed arrival times fall behind the clock, so the time an
+ * operation spent waiting for a free thread is included in its intended latency, just as if the
+ * arrivals had been queued for a worker pool.
+ */
+public class ArrivalScheduler {
+  /**
+   * The supported arrival processes.
+   */
+  public enum Process {
+    /** Arrivals are exactly 1/target apart. */
+    FIXED,
+    /** Inter-arrival times are exponentially distributed with mean 1/target. */
+    POISSON
+  }
+
+  private final Process process;
+  private final double meanIntervalNs;
+  private final AtomicLong nextArrivalNs = new AtomicLong();
+
+  private final long fixedIntervalNs;
+  /**
+   * Fractional nanoseconds of the fixed interval, carried over so long runs don't drift.
+   */
+  private final double fixedRemainderNs;
+  private final AtomicLong arrivals = new AtomicLong();
+
+  /**
+   * @param process      The arrival process to generate.
+   * @param targetPerSec The target number of arrivals per second over all client threads.
+   */
+  public ArrivalScheduler(Process process, double targetPerSec) {
+    if (targetPerSec <= 0) {
+      throw new IllegalArgumentException("Target throughput must be positive: " + targetPerSec);
+    }
+    this.process = process;
+    this.meanIntervalNs = 1e9 / targetPerSec;
+    this.fixedIntervalNs = (long) meanIntervalNs;
+    this.fixedRemainderNs = meanIntervalNs - fixedIntervalNs;
+  }
+
+  /**
+   * Parse an arrival process name, as given by the "arrivalprocess" property.
+   *
+   * @param name "fixed" or "poisson".
+   * @return The process, or null if the name is not known.
+   */
+  public static Process parseProcess(String name) {
+    switch (name) {
+    case "fixed":
+      return Process.FIXED;
+    case "poisson":
+      return Process.POISSON;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * Claim the next arrival. The schedule starts with the first claim.
+   *
+   * @return The time, in {@link System#nanoTime()} units, at which the claimed operation is due.
+   */
+  public long nextArrivalNs() {
+    if (nextArrivalNs.get() == 0) {
+      nextArrivalNs.compareAndSet(0, System.nanoTime());
+    }
+    return nextArrivalNs.getAndAdd(nextIntervalNs());
+  }
+
+  private long nextIntervalNs() {
+    if (process == Process.POISSON) {
+      return (long) (-Math.log(1.0 - RandomStreams.current().nextDouble()) * meanIntervalNs);
+    }
+    if (fixedRemainderNs == 0) {
+      return fixedIntervalNs;
+    }
+    // spread the fractional part so that arrival n is at n * meanIntervalNs, rounded down
+    long n = arrivals.getAndIncrement();
+    return fixedIntervalNs + (long) ((n + 1) * fixedRemainderNs) - (long) (n * fixedRemainderNs);
+  }
+
+  public Process getProcess() {
+    return process;
+  }
+}
@@ -112,6 +112,12 @@ public final class Client {
    */
   public static final String EXPORT_FILE_PROPERTY = "exportfile";
 
+  /**
+   * Whether to also export the measurements of every status interval while the run is in progress, to the same
+   * exporter as the end of the run. Exporters that don't support intervals ignore them.
+   */
+  public static final String EXPORT_INTERVALS_PROPERTY = "exportintervals";
+
   /**
    * The number of YCSB client threads to run.
    */
@@ -129,6 +135,16 @@ public final class Client {
    */
   public static final String TARGET_PROPERTY = "target";
 
+  /**
+   * How operations are spread out to meet the target throughput. "perthread" (the default) spaces the
+   * operations of each client thread on its own fixed grid. "fixed" and "poisson" generate arrivals
+   * for the whole client at a fixed rate or as a Poisson process, independent of the thread count,
+   * and hand each arrival to the next free client thread (open-loop).
+   */
+  public static final String ARRIVAL_PROCESS_PROPERTY = "arrivalprocess";
+
+  public static final String ARRIVAL_PROCESS_PROPERTY_DEFAULT = "perthread";
+
   /**
    * The maximum amount of time (in seconds) for which the benchmark will be run.
    */
@@ -154,6 +170,16 @@ public final class Client {
    */
   private static StatusThread statusthread = null;
 
+  /**
+   * An optional HTTP endpoint serving the status in OpenMetrics format.
+   */
+  private static MetricsServer metricsserver = null;
+
+  /**
+   * The exporter opened at the start of the run when the measurements of every status interval are exported.
+   */
+  private static MeasurementsExporter intervalexporter = null;
+
   // HTrace integration related constants.
 
   /**
@@ -173,8 +199,12 @@ public final class Client {
         "        \"threadcount\" property using -p");
     System.out.println("  -target n: attempt to do n operations per second (default: unlimited) - can also\n" +
         "       be specified as the \"target\" property using -p");
+    System.out.println("  -p arrivalprocess=fixed|poisson: generate the target load open-loop, independent of\n" +
+        "       the number of threads (default: perthread)");
     System.out.println("  -load:  run the loading phase of the workload");
     System.out.println("  -t:  run the transactions phase of the workload (default)");
+    System.out.println("  -p threadmodel=virtual: run the client threads as virtual threads if the JVM supports\n" +
+        "       them (default: platform)");
     System.out.println("  -db dbname: specify the name of the DB to use (default: site.ycsb.BasicDB) - \n" +
         "        can also be specified as the \"db\" property using -p");
     System.out.println("  -P propertyfile: load properties from the given file. Multiple files can");
@@ -205,36 +235,47 @@ public final class Client {
   }
 
 
+  /**
+   * Opens the exporter loaded from conf, writing to either sysout or a file.
+   *
+   * @throws IOException Failed to open the output file.
+   */
+  private static MeasurementsExporter createExporter(Properties props) throws IOException {
+    // if no destination file is provided the results will be written to stdout
+    OutputStream out;
+    String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
+    if (exportFile == null) {
+      out = System.out;
+    } else {
+      out = new FileOutputStream(exportFile);
+    }
+
+    // if no exporter is provided the default text one will be used
+    String exporterStr = props.getProperty(EXPORTER_PROPERTY,
+        "site.ycsb.measurements.exporter.TextMeasurementsExporter");
+    try {
+      return (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
+          .newInstance(out);
+    } catch (Exception e) {
+      System.err.println("Could not find exporter " + exporterStr
+          + ", will use default text reporter.");
+      e.printStackTrace();
+      return new TextMeasurementsExporter(out);
+    }
+  }
+
   /**
    * Exports the measurements to either sysout or a file using the exporter
-   * loaded from conf.
+   * loaded from conf, or the one the intervals were exported to.
    *
    * @throws IOException Either failed to write to output stream or failed to close it.
    */
-  private static void exportMeasurements(Properties props, int opcount, long runtime)
+  private static void exportMeasurements(Properties props, long opcount, long runtime)
       throws IOException {
-    MeasurementsExporter exporter = null;
+    MeasurementsExporter exporter = intervalexporter;
     try {
-      // if no destination file is provided the results will be written to stdout
-      OutputStream out;
-      String exportFile = props.getProperty(EXPORT_FILE_PROPERTY);
-      if (exportFile == null) {
-        out = System.out;
-      } else {
-        out = new FileOutputStream(exportFile);
-      }
-
-      // if no exporter is provided the default text one will be used
-      String exporterStr = props.getProperty(EXPORTER_PROPERTY,
-          "site.ycsb.measurements.exporter.TextMeasurementsExporter");
-      try {
-        exporter = (MeasurementsExporter) Class.forName(exporterStr).getConstructor(OutputStream.class)
-            .newInstance(out);
-      } catch (Exception e) {
-        System.err.println("Could not find exporter " + exporterStr
-            + ", will use default text reporter.");
-        e.printStackTrace();
-        exporter = new TextMeasurementsExporter(out);
+      if (exporter == null) {
+        exporter = createExporter(props);
       }
 
       exporter.write("OVERALL", "RunTime(ms)", runtime);
@@ -289,7 +330,16 @@ public final class Client {
 
     //compute the target throughput
     double targetperthreadperms = -1;
-    if (target > 0) {
+    ArrivalScheduler arrivalScheduler = null;
+    String arrivalProcess = props.getProperty(ARRIVAL_PROCESS_PROPERTY, ARRIVAL_PROCESS_PROPERTY_DEFAULT);
+    if (target > 0 && !arrivalProcess.equals(ARRIVAL_PROCESS_PROPERTY_DEFAULT)) {
+      ArrivalScheduler.Process process = ArrivalScheduler.parseProcess(arrivalProcess);
+      if (process == null) {
+        System.out.println("Unknown " + ARRIVAL_PROCESS_PROPERTY + " \"" + arrivalProcess + "\"");
+        System.exit(0);
+      }
+      arrivalScheduler = new ArrivalScheduler(process, target);
+    } else if (target > 0) {
       double targetperthread = ((double) target) / ((double) threadcount);
       targetperthreadperms = targetperthread / 1000.0;
     }
@@ -310,30 +360,34 @@ public final class Client {
 
     final List<ClientThread> clients = initDb(dbname, props, threadcount, targetperthreadperms,
         workload, tracer, completeLatch);
-
-    if (status) {
-      boolean standardstatus = false;
-      if (props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "").compareTo("timeseries") == 0) {
-        standardstatus = true;
+    if (arrivalScheduler != null) {
+      if (props.getProperty(Measurements.MEASUREMENT_INTERVAL, "op").equals("op")) {
+        System.err.println("Warning: with " + ARRIVAL_PROCESS_PROPERTY + "=" + arrivalProcess + " queueing delay is " +
+            "only measured if " + Measurements.MEASUREMENT_INTERVAL + " is \"intended\" or \"both\".");
+      }
+      for (ClientThread client : clients) {
+        client.setArrivalScheduler(arrivalScheduler);
       }
-      int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
-      boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
-          Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
-      statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
-          trackJVMStats);
-      statusthread.start();
     }
 
+    startStatusThread(props, status, label, completeLatch, clients);
+
     Thread terminator = null;
     long st;
     long en;
-    int opsDone;
+    long opsDone;
 
     try (final TraceScope span = tracer.newScope(CLIENT_WORKLOAD_SPAN)) {
 
+      final ClientThreadFactory threadFactory = ClientThreadFactory.create(
+          props.getProperty(ClientThreadFactory.THREAD_MODEL_PROPERTY,
+              ClientThreadFactory.THREAD_MODEL_PROPERTY_DEFAULT));
+      if (threadFactory.isVirtual()) {
+        System.err.println("Running client threads as virtual threads.");
+      }
       final Map<Thread, ClientThread> threads = new HashMap<>(threadcount);
       for (ClientThread client : clients) {
-        threads.put(new Thread(tracer.wrap(client, "ClientThread")), client);
+        threads.put(threadFactory.newThread(tracer.wrap(client, "ClientThread")), client);
       }
 
       st = System.currentTimeMillis();
@@ -368,7 +422,7 @@ public final class Client {
           terminator.interrupt();
         }
 
-        if (status) {
+        if (statusthread != null) {
           // wake up status thread if it's asleep
           statusthread.interrupt();
           // at this point we assume all the monitored threads are already gone as per above join loop.
@@ -378,6 +432,9 @@ public final class Client {
             // ignored
           }
         }
+        if (metricsserver != null) {
+          metricsserver.stop();
+        }
 
         workload.cleanup();
       }
@@ -400,6 +457,49 @@ public final class Client {
     System.exit(0);
   }
 
+  /**
+   * Starts the status thread if status is requested, or if the metrics endpoint or the export of intervals is
+   * enabled, which are updated by the status thread.
+   */
+  private static void startStatusThread(Properties props, boolean status, String label,
+                                        CountDownLatch completeLatch, List<ClientThread> clients) {
+    String metricsPort = props.getProperty(MetricsServer.PORT_PROPERTY);
+    if (metricsPort != null) {
+      try {
+        metricsserver = new MetricsServer(props.getProperty(MetricsServer.HOST_PROPERTY),
+            Integer.parseInt(metricsPort));
+        metricsserver.start();
+        System.err.println("Serving metrics on " + metricsserver.getAddress().getHostString() + ":"
+            + metricsserver.getPort() + " at " + MetricsServer.PATH);
+      } catch (IOException e) {
+        System.err.println("Could not start the metrics server, error: " + e.getMessage());
+      }
+    }
+    if (Boolean.parseBoolean(props.getProperty(EXPORT_INTERVALS_PROPERTY, String.valueOf(false)))) {
+      try {
+        intervalexporter = createExporter(props);
+      } catch (IOException e) {
+        System.err.println("Could not open the exporter for intervals, error: " + e.getMessage());
+      }
+    }
+    if (!status && metricsserver == null && intervalexporter == null) {
+      return;
+    }
+
+    boolean standardstatus = false;
+    if (props.getProperty(Measurements.MEASUREMENT_TYPE_PROPERTY, "").compareTo("timeseries") == 0) {
+      standardstatus = true;
+    }
+    int statusIntervalSeconds = Integer.parseInt(props.getProperty("status.interval", "10"));
+    boolean trackJVMStats = props.getProperty(Measurements.MEASUREMENT_TRACK_JVM_PROPERTY,
+        Measurements.MEASUREMENT_TRACK_JVM_PROPERTY_DEFAULT).equals("true");
+    statusthread = new StatusThread(completeLatch, clients, label, standardstatus, statusIntervalSeconds,
+        trackJVMStats);
+    statusthread.setMetricsServer(metricsserver);
+    statusthread.setIntervalExporter(intervalexporter);
+    statusthread.start();
+  }
+
   private static List<ClientThread> initDb(String dbname, Properties props, int threadcount,
                                            double targetperthreadperms, Workload workload, Tracer tracer,
                                            CountDownLatch completeLatch) {
@@ -408,18 +508,18 @@ public final class Client {
 
     final List<ClientThread> clients = new ArrayList<>(threadcount);
     try (final TraceScope span = tracer.newScope(CLIENT_INIT_SPAN)) {
-      int opcount;
+      long opcount;
       if (dotransactions) {
-        opcount = Integer.parseInt(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
+        opcount = Long.parseLong(props.getProperty(OPERATION_COUNT_PROPERTY, "0"));
       } else {
         if (props.containsKey(INSERT_COUNT_PROPERTY)) {
-          opcount = Integer.parseInt(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
+          opcount = Long.parseLong(props.getProperty(INSERT_COUNT_PROPERTY, "0"));
         } else {
-          opcount = Integer.parseInt(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
+          opcount = Long.parseLong(props.getProperty(RECORD_COUNT_PROPERTY, DEFAULT_RECORD_COUNT));
         }
       }
       if (threadcount > opcount && opcount > 0){
-        threadcount = opcount;
+        threadcount = (int) opcount;
         System.out.println("Warning: the threadcount is bigger than recordcount, the threadcount will be recordcount!");
       }
       for (int threadid = 0; threadid < threadcount; threadid++) {
@@ -432,7 +532,7 @@ public final class Client {
           break;
         }
 
-        int threadopcount = opcount / threadcount;
+        long threadopcount = opcount / threadcount;
 
         // ensure correct number of operations, in case opcount is not a multiple of threadcount
         if (threadid < opcount % threadcount) {
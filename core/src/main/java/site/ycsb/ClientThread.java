@@ -20,7 +20,6 @@ package site.ycsb;
 import site.ycsb.measurements.Measurements;
 import java.util.Properties;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.locks.LockSupport;
 
 /**
@@ -34,15 +33,19 @@ public class ClientThread implements Runnable {
   private DB db;
   private boolean dotransactions;
   private Workload workload;
-  private int opcount;
+  private long opcount;
   private double targetOpsPerMs;
 
-  private int opsdone;
+  /**
+   * Only written by this thread, but read by the status thread while the run is in progress.
+   */
+  private volatile long opsdone;
   private int threadid;
   private int threadcount;
   private Object workloadstate;
   private Properties props;
   private long targetOpsTickNs;
+  private ArrivalScheduler arrivalScheduler;
   private final Measurements measurements;
 
   /**
@@ -56,7 +59,7 @@ public class ClientThread implements Runnable {
    * @param targetperthreadperms target number of operations per thread per ms
    * @param completeLatch        The latch tracking the completion of all clients.
    */
-  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, int opcount,
+  public ClientThread(DB db, boolean dotransactions, Workload workload, Properties props, long opcount,
                       double targetperthreadperms, CountDownLatch completeLatch) {
     this.db = db;
     this.dotransactions = dotransactions;
@@ -81,7 +84,15 @@ public class ClientThread implements Runnable {
     threadcount = threadCount;
   }
 
-  public int getOpsDone() {
+  /**
+   * Take arrivals from a schedule shared with the other client threads instead of throttling this
+   * thread on its own.
+   */
+  public void setArrivalScheduler(final ArrivalScheduler scheduler) {
+    arrivalScheduler = scheduler;
+  }
+
+  public long getOpsDone() {
     return opsdone;
   }
 
@@ -110,7 +121,7 @@ public class ClientThread implements Runnable {
     // GH issue 4 - throws exception if _target>1 because random.nextInt argument must be >0
     // and the sleep() doesn't make sense for granularities < 1 ms anyway
     if ((targetOpsPerMs > 0) && (targetOpsPerMs <= 1.0)) {
-      long randomMinorDelay = ThreadLocalRandom.current().nextInt((int) targetOpsTickNs);
+      long randomMinorDelay = RandomStreams.current().nextInt((int) targetOpsTickNs);
       sleepUntil(System.nanoTime() + randomMinorDelay);
     }
     try {
@@ -119,6 +130,8 @@ public class ClientThread implements Runnable {
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
 
+          awaitArrival();
+
           if (!workload.doTransaction(db, workloadstate)) {
             break;
           }
@@ -132,6 +145,8 @@ public class ClientThread implements Runnable {
 
         while (((opcount == 0) || (opsdone < opcount)) && !workload.isStopRequested()) {
 
+          awaitArrival();
+
           if (!workload.doInsert(db, workloadstate)) {
             break;
           }
@@ -166,6 +181,14 @@ public class ClientThread implements Runnable {
     }
   }
 
+  private void awaitArrival() {
+    if (arrivalScheduler != null) {
+      long arrival = arrivalScheduler.nextArrivalNs();
+      sleepUntil(arrival);
+      measurements.setIntendedStartTimeNs(arrival);
+    }
+  }
+
   private void throttleNanos(long startTimeNanos) {
     //throttle the operations
     if (targetOpsPerMs > 0) {
@@ -179,8 +202,8 @@ public class ClientThread implements Runnable {
   /**
    * The total amount of work this thread is still expected to do.
    */
-  int getOpsTodo() {
-    int todo = opcount - opsdone;
+  long getOpsTodo() {
+    long todo = opcount - opsdone;
     return todo < 0 ? 0 : todo;
   }
 }
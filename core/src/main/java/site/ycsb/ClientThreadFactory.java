@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads that run the {@link ClientThread}s, either as platform threads or, with
+ * "threadmodel=virtual", as virtual threads.
+ *
+ * YCSB is built for Java 8, so virtual threads are created through reflection. If the running JVM
+ * does not support them, platform threads are used instead.
+ */
+public final class ClientThreadFactory implements ThreadFactory {
+  /**
+   * The thread model for client threads, "platform" or "virtual".
+   */
+  public static final String THREAD_MODEL_PROPERTY = "threadmodel";
+
+  public static final String THREAD_MODEL_PROPERTY_DEFAULT = "platform";
+
+  private final Object virtualBuilder;
+  private final Method unstarted;
+  private final AtomicInteger count = new AtomicInteger();
+
+  private ClientThreadFactory(Object virtualBuilder, Method unstarted) {
+    this.virtualBuilder = virtualBuilder;
+    this.unstarted = unstarted;
+  }
+
+  /**
+   * Create a factory for the given thread model.
+   *
+   * @param threadModel "platform" or "virtual".
+   * @return The factory.
+   * @throws IllegalArgumentException if the thread model is unknown.
+   */
+  public static ClientThreadFactory create(String threadModel) {
+    switch (threadModel) {
+    case "platform":
+      return new ClientThreadFactory(null, null);
+    case "virtual":
+      try {
+        Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+        Method unstarted = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        return new ClientThreadFactory(builder, unstarted);
+      } catch (ReflectiveOperationException e) {
+        System.err.println("Virtual threads are not supported by this JVM (" + System.getProperty("java.version") +
+            "), using platform threads.");
+        return new ClientThreadFactory(null, null);
+      }
+    default:
+      throw new IllegalArgumentException("unknown " + THREAD_MODEL_PROPERTY + "=" + threadModel);
+    }
+  }
+
+  /**
+   * @return true if this factory creates virtual threads.
+   */
+  public boolean isVirtual() {
+    return virtualBuilder != null;
+  }
+
+  @Override
+  public Thread newThread(Runnable r) {
+    if (virtualBuilder == null) {
+      return new Thread(r);
+    }
+    try {
+      Thread t = (Thread) unstarted.invoke(virtualBuilder, r);
+      // virtual threads are unnamed by default
+      t.setName("ClientThread-" + count.getAndIncrement());
+      return t;
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Failed to create virtual thread", e);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+/**
+ * A ByteIterator of random printable bytes that compresses to roughly a given fraction of its size.
+ *
+ * The value is made of pieces of {@link #PIECE_LENGTH} bytes. Each piece starts with compressibility * PIECE_LENGTH
+ * random bytes, taken from the pool of {@link PooledRandomByteIterator}, which are then repeated to the end of the
+ * piece. Block compressors such as LZ4, Snappy or zstd store the random bytes and replace the repetitions with
+ * short back references, so the compressed size is close to the random part. Since a piece is short, the
+ * repetitions are found even by compressors with a small window.
+ */
+public class CompressibleByteIterator extends ByteIterator {
+  /** The length of a piece with one run of random bytes. */
+  public static final int PIECE_LENGTH = 100;
+
+  private static final int POOL_MASK = PooledRandomByteIterator.POOL_SIZE - 1;
+
+  private final long len;
+  /** The number of random bytes at the start of each piece. */
+  private final int random;
+  private final int start;
+  private long off;
+
+  /**
+   * @param len             The length of the value.
+   * @param compressibility The targeted compressed size as a fraction of the value size, from 0 (exclusive) to 1.
+   */
+  public CompressibleByteIterator(long len, double compressibility) {
+    if (!(compressibility > 0 && compressibility <= 1)) {
+      throw new IllegalArgumentException("Compressibility must be in (0, 1]: " + compressibility);
+    }
+    this.len = len;
+    this.random = Math.max(1, (int) Math.round(PIECE_LENGTH * compressibility));
+    this.start = RandomStreams.current().nextInt(PooledRandomByteIterator.POOL_SIZE);
+    this.off = 0;
+  }
+
+  /** The position in the pool of the byte at the given offset of the value. */
+  private int poolOffset(long offset) {
+    long piece = offset / PIECE_LENGTH;
+    int inpiece = (int) (offset - piece * PIECE_LENGTH);
+    return (int) ((start + piece * random + inpiece % random) & POOL_MASK);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    return PooledRandomByteIterator.pool()[poolOffset(off++)];
+  }
+
+  @Override
+  public int nextBuf(byte[] buffer, int bufOffset) {
+    byte[] pool = PooledRandomByteIterator.pool();
+    int end = (int) Math.min(buffer.length, bufOffset + bytesLeft());
+    int pos = bufOffset;
+    while (pos < end) {
+      int poolOff = poolOffset(off);
+      int inpiece = (int) (off % PIECE_LENGTH);
+      int inrun = inpiece % random;
+      // copy up to the end of the run of random bytes, the piece, or the pool, whichever comes first
+      int n = Math.min(end - pos, Math.min(random - inrun, PIECE_LENGTH - inpiece));
+      n = Math.min(n, PooledRandomByteIterator.POOL_SIZE - poolOff);
+      System.arraycopy(pool, poolOff, buffer, pos, n);
+      pos += n;
+      off += n;
+    }
+    return pos;
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  /** Rewinds to the first byte; the value is the same as before. */
+  @Override
+  public void reset() {
+    off = 0;
+  }
+
+  /** Consumes remaining contents of this object, and returns them as a byte array. */
+  @Override
+  public byte[] toArray() {
+    long left = bytesLeft();
+    if (left != (int) left) {
+      throw new ArrayIndexOutOfBoundsException("Too much data to fit in one array!");
+    }
+    byte[] ret = new byte[(int) left];
+    nextBuf(ret, 0);
+    return ret;
+  }
+}
@@ -17,7 +17,9 @@
 
 package site.ycsb;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -132,4 +134,113 @@ public abstract class DB {
    * @return The result of the operation.
    */
   public abstract Status delete(String table, String key);
+
+  /**
+   * Read a record whose key is given as UTF-8 bytes. Workloads pass keys from a reusable buffer, so the
+   * key array must not be modified or kept beyond the call. The default implementation converts the key to a
+   * String; bindings that store keys as bytes can override it to skip the conversion.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to read, as UTF-8 bytes.
+   * @param fields The list of fields to read, or null for all of them
+   * @param result A HashMap of field/value pairs for the result
+   * @return The result of the operation.
+   */
+  public Status read(String table, byte[] key, Set<String> fields, Map<String, ByteIterator> result) {
+    return read(table, new String(key, StandardCharsets.UTF_8), fields, result);
+  }
+
+  /**
+   * Update a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to write, as UTF-8 bytes.
+   * @param values A HashMap of field/value pairs to update in the record
+   * @return The result of the operation.
+   */
+  public Status update(String table, byte[] key, Map<String, ByteIterator> values) {
+    return update(table, new String(key, StandardCharsets.UTF_8), values);
+  }
+
+  /**
+   * Insert a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert, as UTF-8 bytes.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @return The result of the operation.
+   */
+  public Status insert(String table, byte[] key, Map<String, ByteIterator> values) {
+    return insert(table, new String(key, StandardCharsets.UTF_8), values);
+  }
+
+  /**
+   * Delete a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to delete, as UTF-8 bytes.
+   * @return The result of the operation.
+   */
+  public Status delete(String table, byte[] key) {
+    return delete(table, new String(key, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Read a batch of records from the database. The default implementation reads the records one at a time;
+   * bindings with a multi-get API should override it.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results A List that receives one map of field/value pairs per key, in the order of keys
+   * @return The result of the operation; if some records failed, the status of the first failure.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    Status status = Status.OK;
+    for (String key : keys) {
+      HashMap<String, ByteIterator> result = new HashMap<>();
+      status = firstFailure(status, read(table, key, fields, result));
+      results.add(result);
+    }
+    return status;
+  }
+
+  /**
+   * Insert a batch of records in the database. The default implementation inserts the records one at a time;
+   * bindings with a bulk-write API should override it.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values One map of field/value pairs per key, in the order of keys
+   * @return The result of the operation; if some records failed, the status of the first failure.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      status = firstFailure(status, insert(table, keys.get(i), values.get(i)));
+    }
+    return status;
+  }
+
+  /**
+   * Update a batch of records in the database. The default implementation updates the records one at a time;
+   * bindings with a bulk-write API should override it.
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to update.
+   * @param values One map of field/value pairs per key, in the order of keys
+   * @return The result of the operation; if some records failed, the status of the first failure.
+   */
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    Status status = Status.OK;
+    for (int i = 0; i < keys.size(); i++) {
+      status = firstFailure(status, update(table, keys.get(i), values.get(i)));
+    }
+    return status;
+  }
+
+  private static Status firstFailure(Status soFar, Status next) {
+    return soFar.isOk() && (next == null || !next.isOk()) ? next : soFar;
+  }
 }
@@ -19,16 +19,26 @@ package site.ycsb;
 
 import java.util.Map;
 
+import site.ycsb.measurements.MeasurementHandle;
 import site.ycsb.measurements.Measurements;
 import org.apache.htrace.core.TraceScope;
 import org.apache.htrace.core.Tracer;
 
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Wrapper around a "real" DB that measures latencies and counts return codes.
  * Also reports latency separately between OK and failed operations.
+ *
+ * If the wrapped DB is an {@link AsyncDB} and "maxinflight" is greater than 1, operations are issued
+ * through the asynchronous API and return {@link Status#BATCHED_OK} immediately. Latency and return
+ * codes are then recorded when each operation completes, and the calling client thread blocks only
+ * once "maxinflight" operations are outstanding.
  */
 public class DBWrapper extends DB {
   private final DB db;
@@ -43,8 +53,54 @@ public class DBWrapper extends DB {
 
   private static final String LATENCY_TRACKED_ERRORS_PROPERTY = "latencytrackederrors";
 
+  /**
+   * The maximum number of outstanding asynchronous operations per client thread. Only used if the
+   * DB is an {@link AsyncDB}.
+   */
+  public static final String MAX_IN_FLIGHT_PROPERTY = "maxinflight";
+  public static final String MAX_IN_FLIGHT_PROPERTY_DEFAULT = "1";
+
+  private int maxInFlight = 1;
+  private AsyncDB asyncDb;
+  private Semaphore inFlight;
+
   private static final AtomicBoolean LOG_REPORT_CONFIG = new AtomicBoolean(false);
 
+  // Indexes of the measured operations in OPERATIONS and handles.
+  private static final int READ = 0;
+  private static final int SCAN = 1;
+  private static final int UPDATE = 2;
+  private static final int INSERT = 3;
+  private static final int DELETE = 4;
+  private static final int CLEANUP = 5;
+  private static final int BATCH_READ = 6;
+  private static final int BATCH_INSERT = 7;
+  private static final int BATCH_UPDATE = 8;
+  /** Offset from a batch operation to the per-item measurement of the same batch. */
+  private static final int ITEM = 3;
+  private static final String[] OPERATIONS = {"READ", "SCAN", "UPDATE", "INSERT", "DELETE", "CLEANUP",
+      "BATCH-READ", "BATCH-INSERT", "BATCH-UPDATE", "BATCH-READ-ITEM", "BATCH-INSERT-ITEM", "BATCH-UPDATE-ITEM"};
+
+  /**
+   * The statuses that get their own column in handles. Index 0 holds the handle for successful
+   * operations; failures with other statuses are resolved in {@link #handle(int, Status)}.
+   */
+  private static final Status[] STATUSES = {Status.OK, Status.ERROR, Status.NOT_FOUND, Status.NOT_IMPLEMENTED,
+      Status.UNEXPECTED_STATE, Status.BAD_REQUEST, Status.FORBIDDEN, Status.SERVICE_UNAVAILABLE};
+
+  /**
+   * Measurement handles by operation and status index, resolved in {@link #init()} so that recording an
+   * operation neither builds the measurement name nor looks it up.
+   */
+  private MeasurementHandle[][] handles;
+  /**
+   * The measurement of failures with a status outside of STATUSES, by operation.
+   */
+  private MeasurementHandle[] otherFailureHandles;
+
+  private Measurements.StartTimeHolder intendedStartTime;
+  private Thread intendedStartTimeOwner;
+
   private final String scopeStringCleanup;
   private final String scopeStringDelete;
   private final String scopeStringInit;
@@ -52,6 +108,9 @@ public class DBWrapper extends DB {
   private final String scopeStringRead;
   private final String scopeStringScan;
   private final String scopeStringUpdate;
+  private final String scopeStringBatchRead;
+  private final String scopeStringBatchInsert;
+  private final String scopeStringBatchUpdate;
 
   public DBWrapper(final DB db, final Tracer tracer) {
     this.db = db;
@@ -65,6 +124,9 @@ public class DBWrapper extends DB {
     scopeStringRead = simple + "#read";
     scopeStringScan = simple + "#scan";
     scopeStringUpdate = simple + "#update";
+    scopeStringBatchRead = simple + "#batchRead";
+    scopeStringBatchInsert = simple + "#batchInsert";
+    scopeStringBatchUpdate = simple + "#batchUpdate";
   }
 
   /**
@@ -101,10 +163,31 @@ public class DBWrapper extends DB {
         }
       }
 
+      handles = new MeasurementHandle[OPERATIONS.length][STATUSES.length];
+      otherFailureHandles = new MeasurementHandle[OPERATIONS.length];
+      for (int op = 0; op < OPERATIONS.length; op++) {
+        for (int i = 0; i < STATUSES.length; i++) {
+          handles[op][i] = measurements.getHandle(measurementName(OPERATIONS[op], STATUSES[i]));
+        }
+        otherFailureHandles[op] = measurements.getHandle(OPERATIONS[op] + "-FAILED");
+      }
+
+      this.maxInFlight = Integer.parseInt(getProperties().
+          getProperty(MAX_IN_FLIGHT_PROPERTY, MAX_IN_FLIGHT_PROPERTY_DEFAULT));
+      if (maxInFlight > 1 && db instanceof AsyncDB) {
+        this.asyncDb = (AsyncDB) db;
+        this.inFlight = new Semaphore(maxInFlight);
+      }
+
       if (LOG_REPORT_CONFIG.compareAndSet(false, true)) {
         System.err.println("DBWrapper: report latency for each error is " +
             this.reportLatencyForEachError + " and specific error codes to track" +
             " for latency are: " + this.latencyTrackedErrors.toString());
+        if (maxInFlight > 1) {
+          System.err.println("DBWrapper: " + (asyncDb != null ? "up to " + maxInFlight +
+              " asynchronous operations in flight per thread" :
+              MAX_IN_FLIGHT_PROPERTY + " ignored, " + db.getClass().getSimpleName() + " is not an AsyncDB"));
+        }
       }
     }
   }
@@ -115,11 +198,16 @@ public class DBWrapper extends DB {
    */
   public void cleanup() throws DBException {
     try (final TraceScope span = tracer.newScope(scopeStringCleanup)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      if (inFlight != null) {
+        // wait for all outstanding asynchronous operations to complete
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+      }
+      long ist = intendedStartTimeNs();
       long st = System.nanoTime();
       db.cleanup();
       long en = System.nanoTime();
-      measure("CLEANUP", Status.OK, ist, st, en);
+      measure(CLEANUP, Status.OK, ist, st, en);
     }
   }
 
@@ -136,12 +224,22 @@ public class DBWrapper extends DB {
   public Status read(String table, String key, Set<String> fields,
                      Map<String, ByteIterator> result) {
     try (final TraceScope span = tracer.newScope(scopeStringRead)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      long ist = intendedStartTimeNs();
+      if (asyncDb != null) {
+        inFlight.acquireUninterruptibly();
+        long st = System.nanoTime();
+        try {
+          return measureAsync(READ, ist, st, asyncDb.readAsync(table, key, fields, result));
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+          return completeAsync(READ, Status.ERROR, ist, st);
+        }
+      }
       long st = System.nanoTime();
       Status res = db.read(table, key, fields, result);
       long en = System.nanoTime();
-      measure("READ", res, ist, st, en);
-      measurements.reportStatus("READ", res);
+      measure(READ, res, ist, st, en);
+      handles[READ][0].reportStatus(res);
       return res;
     }
   }
@@ -160,31 +258,127 @@ public class DBWrapper extends DB {
   public Status scan(String table, String startkey, int recordcount,
                      Set<String> fields, Vector<HashMap<String, ByteIterator>> result) {
     try (final TraceScope span = tracer.newScope(scopeStringScan)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      long ist = intendedStartTimeNs();
+      if (asyncDb != null) {
+        inFlight.acquireUninterruptibly();
+        long st = System.nanoTime();
+        try {
+          return measureAsync(SCAN, ist, st, asyncDb.scanAsync(table, startkey, recordcount, fields, result));
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+          return completeAsync(SCAN, Status.ERROR, ist, st);
+        }
+      }
       long st = System.nanoTime();
       Status res = db.scan(table, startkey, recordcount, fields, result);
       long en = System.nanoTime();
-      measure("SCAN", res, ist, st, en);
-      measurements.reportStatus("SCAN", res);
+      measure(SCAN, res, ist, st, en);
+      handles[SCAN][0].reportStatus(res);
       return res;
     }
   }
 
-  private void measure(String op, Status result, long intendedStartTimeNanos,
+  /**
+   * @return The intended start time of the current operation of the calling thread.
+   */
+  private long intendedStartTimeNs() {
+    Thread current = Thread.currentThread();
+    if (current != intendedStartTimeOwner) {
+      // the holder is per thread; a DB instance normally stays on its client thread
+      intendedStartTime = measurements.getIntendedStartTimeHolder();
+      intendedStartTimeOwner = current;
+    }
+    return intendedStartTime == null ? 0L : intendedStartTime.startTime();
+  }
+
+  /**
+   * @return Whether operations are issued through the asynchronous API, and may complete after they returned
+   * {@link Status#BATCHED_OK}.
+   */
+  public boolean isAsync() {
+    return asyncDb != null;
+  }
+
+  /**
+   * Records the operation once the given stage completes and releases its in-flight slot.
+   */
+  private Status measureAsync(final int op, final long intendedStartTimeNanos, final long startTimeNanos,
+                              CompletionStage<Status> stage) {
+    recordAsync(op, intendedStartTimeNanos, startTimeNanos, stage);
+    return Status.BATCHED_OK;
+  }
+
+  /**
+   * @return A stage completing with the status of the operation once it has been recorded.
+   */
+  private CompletionStage<Status> recordAsync(final int op, final long intendedStartTimeNanos,
+                                              final long startTimeNanos, CompletionStage<Status> stage) {
+    return stage.handle((res, ex) ->
+        completeAsync(op, ex == null && res != null ? res : Status.ERROR, intendedStartTimeNanos, startTimeNanos));
+  }
+
+  private Status completeAsync(int op, Status result, long intendedStartTimeNanos, long startTimeNanos) {
+    try {
+      measure(op, result, intendedStartTimeNanos, startTimeNanos, System.nanoTime());
+      handles[op][0].reportStatus(result);
+    } finally {
+      inFlight.release();
+    }
+    return result;
+  }
+
+  private void measure(int op, Status result, long intendedStartTimeNanos,
                        long startTimeNanos, long endTimeNanos) {
-    String measurementName = op;
+    MeasurementHandle handle = handle(op, result);
+    handle.measure((int) ((endTimeNanos - startTimeNanos) / 1000));
+    handle.measureIntended((int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
+  }
+
+  private MeasurementHandle handle(int op, Status result) {
+    if (result != null && result.isOk()) {
+      return handles[op][0];
+    }
+    for (int i = 1; i < STATUSES.length; i++) {
+      if (STATUSES[i] == result) {
+        return handles[op][i];
+      }
+    }
+    if (result != null && (reportLatencyForEachError || latencyTrackedErrors.contains(result.getName()))) {
+      // a binding specific status, rare enough to resolve by name
+      return measurements.getHandle(measurementName(OPERATIONS[op], result));
+    }
+    return otherFailureHandles[op];
+  }
+
+  private String measurementName(String op, Status result) {
     if (result == null || !result.isOk()) {
-      if (this.reportLatencyForEachError ||
-          this.latencyTrackedErrors.contains(result.getName())) {
-        measurementName = op + "-" + result.getName();
+      if (result != null && (this.reportLatencyForEachError ||
+          this.latencyTrackedErrors.contains(result.getName()))) {
+        return op + "-" + result.getName();
       } else {
-        measurementName = op + "-FAILED";
+        return op + "-FAILED";
+      }
+    }
+    return op;
+  }
+
+  /**
+   * Records the latency of a whole batch under op, and the latency amortized over the items of
+   * the batch once per item under op + "-ITEM".
+   */
+  private void measureBatch(int op, Status result, int items, long intendedStartTimeNanos,
+                            long startTimeNanos, long endTimeNanos) {
+    measure(op, result, intendedStartTimeNanos, startTimeNanos, endTimeNanos);
+    handles[op][0].reportStatus(result);
+    if (items > 0) {
+      MeasurementHandle itemHandle = handle(op + ITEM, result);
+      int itemLatency = (int) ((endTimeNanos - startTimeNanos) / items / 1000);
+      int itemIntendedLatency = (int) ((endTimeNanos - intendedStartTimeNanos) / items / 1000);
+      for (int i = 0; i < items; i++) {
+        itemHandle.measure(itemLatency);
+        itemHandle.measureIntended(itemIntendedLatency);
       }
     }
-    measurements.measure(measurementName,
-        (int) ((endTimeNanos - startTimeNanos) / 1000));
-    measurements.measureIntended(measurementName,
-        (int) ((endTimeNanos - intendedStartTimeNanos) / 1000));
   }
 
   /**
@@ -199,12 +393,22 @@ public class DBWrapper extends DB {
   public Status update(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      long ist = intendedStartTimeNs();
+      if (asyncDb != null) {
+        inFlight.acquireUninterruptibly();
+        long st = System.nanoTime();
+        try {
+          return measureAsync(UPDATE, ist, st, asyncDb.updateAsync(table, key, values));
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+          return completeAsync(UPDATE, Status.ERROR, ist, st);
+        }
+      }
       long st = System.nanoTime();
       Status res = db.update(table, key, values);
       long en = System.nanoTime();
-      measure("UPDATE", res, ist, st, en);
-      measurements.reportStatus("UPDATE", res);
+      measure(UPDATE, res, ist, st, en);
+      handles[UPDATE][0].reportStatus(res);
       return res;
     }
   }
@@ -222,12 +426,110 @@ public class DBWrapper extends DB {
   public Status insert(String table, String key,
                        Map<String, ByteIterator> values) {
     try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      long ist = intendedStartTimeNs();
+      if (asyncDb != null) {
+        inFlight.acquireUninterruptibly();
+        long st = System.nanoTime();
+        try {
+          return measureAsync(INSERT, ist, st, asyncDb.insertAsync(table, key, values));
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+          return completeAsync(INSERT, Status.ERROR, ist, st);
+        }
+      }
       long st = System.nanoTime();
       Status res = db.insert(table, key, values);
       long en = System.nanoTime();
-      measure("INSERT", res, ist, st, en);
-      measurements.reportStatus("INSERT", res);
+      measure(INSERT, res, ist, st, en);
+      handles[INSERT][0].reportStatus(res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a record in the database like {@link #insert(String, String, Map)}, for callers that need to know
+   * when the insert completed, which is after this returns if the operations are {@link #isAsync()}.
+   *
+   * @param table The name of the table
+   * @param key The record key of the record to insert.
+   * @param values A HashMap of field/value pairs to insert in the record
+   * @return A stage completing with the result of the operation.
+   */
+  public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+    if (asyncDb == null) {
+      return CompletableFuture.completedFuture(insert(table, key, values));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = intendedStartTimeNs();
+      inFlight.acquireUninterruptibly();
+      long st = System.nanoTime();
+      try {
+        return recordAsync(INSERT, ist, st, asyncDb.insertAsync(table, key, values));
+      } catch (RuntimeException e) {
+        e.printStackTrace();
+        return CompletableFuture.completedFuture(completeAsync(INSERT, Status.ERROR, ist, st));
+      }
+    }
+  }
+
+  /**
+   * Read a batch of records from the database. Latency is reported per batch as "BATCH-READ"
+   * and amortized per record as "BATCH-READ-ITEM".
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to read.
+   * @param fields The list of fields to read, or null for all of them
+   * @param results A List that receives one map of field/value pairs per key, in the order of keys
+   * @return The result of the operation.
+   */
+  public Status batchRead(String table, List<String> keys, Set<String> fields,
+                          List<Map<String, ByteIterator>> results) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchRead)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchRead(table, keys, fields, results);
+      long en = System.nanoTime();
+      measureBatch(BATCH_READ, res, keys.size(), ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a batch of records in the database. Latency is reported per batch as "BATCH-INSERT"
+   * and amortized per record as "BATCH-INSERT-ITEM".
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to insert.
+   * @param values One map of field/value pairs per key, in the order of keys
+   * @return The result of the operation.
+   */
+  public Status batchInsert(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchInsert)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchInsert(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch(BATCH_INSERT, res, keys.size(), ist, st, en);
+      return res;
+    }
+  }
+
+  /**
+   * Update a batch of records in the database. Latency is reported per batch as "BATCH-UPDATE"
+   * and amortized per record as "BATCH-UPDATE-ITEM".
+   *
+   * @param table The name of the table
+   * @param keys The record keys of the records to update.
+   * @param values One map of field/value pairs per key, in the order of keys
+   * @return The result of the operation.
+   */
+  public Status batchUpdate(String table, List<String> keys, List<Map<String, ByteIterator>> values) {
+    try (final TraceScope span = tracer.newScope(scopeStringBatchUpdate)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.batchUpdate(table, keys, values);
+      long en = System.nanoTime();
+      measureBatch(BATCH_UPDATE, res, keys.size(), ist, st, en);
       return res;
     }
   }
@@ -241,12 +543,99 @@ public class DBWrapper extends DB {
    */
   public Status delete(String table, String key) {
     try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
-      long ist = measurements.getIntendedStartTimeNs();
+      long ist = intendedStartTimeNs();
+      if (asyncDb != null) {
+        inFlight.acquireUninterruptibly();
+        long st = System.nanoTime();
+        try {
+          return measureAsync(DELETE, ist, st, asyncDb.deleteAsync(table, key));
+        } catch (RuntimeException e) {
+          e.printStackTrace();
+          return completeAsync(DELETE, Status.ERROR, ist, st);
+        }
+      }
+      long st = System.nanoTime();
+      Status res = db.delete(table, key);
+      long en = System.nanoTime();
+      measure(DELETE, res, ist, st, en);
+      handles[DELETE][0].reportStatus(res);
+      return res;
+    }
+  }
+
+  /**
+   * Read a record whose key is given as UTF-8 bytes. Asynchronous operations outlive the key buffer,
+   * so for an {@link AsyncDB} the key is copied into a String first.
+   */
+  @Override
+  public Status read(String table, byte[] key, Set<String> fields, Map<String, ByteIterator> result) {
+    if (asyncDb != null) {
+      return read(table, new String(key, StandardCharsets.UTF_8), fields, result);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringRead)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.read(table, key, fields, result);
+      long en = System.nanoTime();
+      measure(READ, res, ist, st, en);
+      handles[READ][0].reportStatus(res);
+      return res;
+    }
+  }
+
+  /**
+   * Update a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   */
+  @Override
+  public Status update(String table, byte[] key, Map<String, ByteIterator> values) {
+    if (asyncDb != null) {
+      return update(table, new String(key, StandardCharsets.UTF_8), values);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringUpdate)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.update(table, key, values);
+      long en = System.nanoTime();
+      measure(UPDATE, res, ist, st, en);
+      handles[UPDATE][0].reportStatus(res);
+      return res;
+    }
+  }
+
+  /**
+   * Insert a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   */
+  @Override
+  public Status insert(String table, byte[] key, Map<String, ByteIterator> values) {
+    if (asyncDb != null) {
+      return insert(table, new String(key, StandardCharsets.UTF_8), values);
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringInsert)) {
+      long ist = intendedStartTimeNs();
+      long st = System.nanoTime();
+      Status res = db.insert(table, key, values);
+      long en = System.nanoTime();
+      measure(INSERT, res, ist, st, en);
+      handles[INSERT][0].reportStatus(res);
+      return res;
+    }
+  }
+
+  /**
+   * Delete a record whose key is given as UTF-8 bytes, see {@link #read(String, byte[], Set, Map)}.
+   */
+  @Override
+  public Status delete(String table, byte[] key) {
+    if (asyncDb != null) {
+      return delete(table, new String(key, StandardCharsets.UTF_8));
+    }
+    try (final TraceScope span = tracer.newScope(scopeStringDelete)) {
+      long ist = intendedStartTimeNs();
       long st = System.nanoTime();
       Status res = db.delete(table, key);
       long en = System.nanoTime();
-      measure("DELETE", res, ist, st, en);
-      measurements.reportStatus("DELETE", res);
+      measure(DELETE, res, ist, st, en);
+      handles[DELETE][0].reportStatus(res);
       return res;
     }
   }
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A ByteIterator whose content is determined by a record key and a field name, so that a value read back from the
+ * database can be checked against a new instance for the same key and field.
+ *
+ * The value starts with "key:field:" and continues with printable bytes from a SplitMix64 stream seeded with a hash
+ * of the key and the field, cut to the requested length. It is generated as it is consumed, and
+ * {@link #contentEquals(ByteIterator)} compares a value with it in the same way, so neither is ever held as a whole.
+ */
+public class DeterministicByteIterator extends ByteIterator {
+  private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+  private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[256]);
+
+  private final byte[] header;
+  private final long seed;
+  private final long len;
+  private long off;
+  private long state;
+  private long bits;
+
+  /**
+   * @param key   The key of the record.
+   * @param field The name of the field.
+   * @param len   The length of the value.
+   */
+  public DeterministicByteIterator(String key, String field, long len) {
+    this.header = (key + ':' + field + ':').getBytes(StandardCharsets.UTF_8);
+    this.seed = Utils.fnvhash64(hash(key) * 31 + hash(field));
+    this.len = len;
+    reset();
+  }
+
+  /** The 64 bit FNV-1a hash of the chars of a string. */
+  private static long hash(String s) {
+    long hashval = Utils.FNV_OFFSET_BASIS_64;
+    for (int i = 0; i < s.length(); i++) {
+      hashval ^= s.charAt(i);
+      hashval *= Utils.FNV_PRIME_64;
+    }
+    return hashval;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    long i = off++;
+    if (i < header.length) {
+      return header[(int) i];
+    }
+    int shift = (int) ((i - header.length) & 7);
+    if (shift == 0) {
+      // SplitMix64
+      state += GOLDEN_GAMMA;
+      long z = state;
+      z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+      z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+      bits = z ^ (z >>> 31);
+    }
+    // 64 printable characters from ' ' to '_'
+    return (byte) (((bits >>> (shift << 3)) & 63) + ' ');
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  @Override
+  public void reset() {
+    off = 0;
+    state = seed;
+  }
+
+  /**
+   * Consumes this iterator and the given one, and returns whether they have the same content.
+   *
+   * @param other The value to compare with.
+   * @return true if both have the same bytes.
+   */
+  public boolean contentEquals(ByteIterator other) {
+    byte[] chunk = SCRATCH.get();
+    while (other.hasNext()) {
+      int n = other.nextBuf(chunk, 0);
+      for (int i = 0; i < n; i++) {
+        if (!hasNext() || nextByte() != chunk[i]) {
+          return false;
+        }
+      }
+    }
+    return !hasNext();
+  }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+/**
+ * Encodes record keys of the form prefix + zero padding + decimal number, e.g. "user00042", as ASCII bytes
+ * without allocating.
+ *
+ * The buffer keeps one array per key length and returns it from {@link #encode(long, int)}, so the returned
+ * array is exactly as long as the key but is overwritten by the next call that produces a key of the same length.
+ * A KeyBuffer must only be used by one thread at a time.
+ */
+public final class KeyBuffer {
+  /** The number of digits of Long.MAX_VALUE. */
+  private static final int MAX_DIGITS = 19;
+
+  private final byte[] prefix;
+  private byte[][] buffers = new byte[0][];
+
+  /**
+   * @param prefix The ASCII prefix of all keys.
+   */
+  public KeyBuffer(String prefix) {
+    this.prefix = new byte[prefix.length()];
+    for (int i = 0; i < prefix.length(); i++) {
+      this.prefix[i] = (byte) prefix.charAt(i);
+    }
+  }
+
+  /**
+   * Encode a key.
+   *
+   * @param keynum      The non-negative number of the key.
+   * @param zeropadding The minimum number of digits; shorter numbers are padded with leading zeros.
+   * @return The key bytes, valid until the next call for a key of the same length.
+   */
+  public byte[] encode(long keynum, int zeropadding) {
+    if (keynum < 0) {
+      throw new IllegalArgumentException("Key numbers must not be negative: " + keynum);
+    }
+    int digits = digits(keynum);
+    int length = prefix.length + Math.max(digits, zeropadding);
+    byte[] key = buffer(length);
+    int pos = length;
+    long rest = keynum;
+    do {
+      key[--pos] = (byte) ('0' + rest % 10);
+      rest /= 10;
+    } while (rest != 0);
+    while (pos > prefix.length) {
+      key[--pos] = '0';
+    }
+    return key;
+  }
+
+  private byte[] buffer(int length) {
+    if (length >= buffers.length) {
+      byte[][] grown = new byte[Math.max(length + 1, prefix.length + MAX_DIGITS + 1)][];
+      System.arraycopy(buffers, 0, grown, 0, buffers.length);
+      buffers = grown;
+    }
+    byte[] key = buffers[length];
+    if (key == null) {
+      key = new byte[length];
+      System.arraycopy(prefix, 0, key, 0, prefix.length);
+      buffers[length] = key;
+    }
+    return key;
+  }
+
+  private static int digits(long n) {
+    int digits = 1;
+    for (long bound = 10; digits < MAX_DIGITS && n >= bound; bound *= 10) {
+      digits++;
+    }
+    return digits;
+  }
+}
@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+import site.ycsb.measurements.OneMeasurement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * A lightweight HTTP endpoint serving the status of the run in the OpenMetrics text format, for Prometheus and
+ * compatible scrapers.
+ *
+ * The page is rendered by the {@link StatusThread} every status interval, right after it moved the interval of
+ * the measurements forward, and a scrape only sends the last rendered page. Scrapes therefore never touch the
+ * measurements nor block the client threads, and the interval percentiles are those of the last complete status
+ * interval, the same as printed in the status line. Percentiles need one of the hdrhistogram or raw measurement
+ * types, the other types only provide the operations and average latency of the interval.
+ */
+public class MetricsServer {
+  /**
+   * The port to serve the metrics on. Not set by default, which disables the endpoint.
+   */
+  public static final String PORT_PROPERTY = "status.metrics.port";
+
+  /**
+   * The address to serve the metrics on. Loopback by default, so that the endpoint isn't reachable from other
+   * hosts unless asked for.
+   */
+  public static final String HOST_PROPERTY = "status.metrics.host";
+
+  /**
+   * The path the metrics are served at.
+   */
+  public static final String PATH = "/metrics";
+
+  public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+  /**
+   * The measurements {@link StatusThread} makes of the JVM, which aren't latencies.
+   */
+  private final HttpServer server;
+  private volatile byte[] page = "# EOF\n".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * @param host The address to listen on, null for loopback.
+   * @param port The port to listen on, 0 for any free port.
+   * @throws IOException If the port can't be bound.
+   */
+  public MetricsServer(String host, int port) throws IOException {
+    InetSocketAddress address = host == null ? new InetSocketAddress(InetAddress.getLoopbackAddress(), port)
+        : new InetSocketAddress(host, port);
+    server = HttpServer.create(address, 0);
+    server.createContext(PATH, this::serve);
+  }
+
+  public void start() {
+    server.start();
+  }
+
+  public void stop() {
+    server.stop(0);
+  }
+
+  /**
+   * @return The address the metrics are served on.
+   */
+  public InetSocketAddress getAddress() {
+    return server.getAddress();
+  }
+
+  /**
+   * @return The port the metrics are served on.
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Renders the page served from now on.
+   *
+   * @param totalops      The number of operations done by all client threads.
+   * @param curthroughput The throughput of the last status interval, in operations per second.
+   * @param measurements  The measurements of all operations.
+   */
+  public void publish(long totalops, double curthroughput, Collection<OneMeasurement> measurements) {
+    StringBuilder out = new StringBuilder();
+    family(out, "ycsb_operations", "counter", "Operations done by all client threads.");
+    sample(out, "ycsb_operations_total", "", totalops);
+    family(out, "ycsb_throughput_ops_per_second", "gauge", "Throughput of the last status interval.");
+    sample(out, "ycsb_throughput_ops_per_second", "", curthroughput);
+
+    family(out, "ycsb_interval_operations", "gauge", "Operations measured in the last status interval.");
+    for (OneMeasurement m : measurements) {
+      OneMeasurement.IntervalSummary summary = summary(m);
+      if (summary != null) {
+        sample(out, "ycsb_interval_operations", labels(m, null), summary.getOperations());
+      }
+    }
+    family(out, "ycsb_interval_latency_microseconds", "summary",
+        "Latency quantiles of the last status interval, 0 being the minimum and 1 the maximum.");
+    for (OneMeasurement m : measurements) {
+      Histogram interval = latencies(m);
+      if (interval != null && interval.getTotalCount() > 0) {
+        String name = "ycsb_interval_latency_microseconds";
+        sample(out, name, labels(m, "0"), interval.getMinValue());
+        for (double quantile : QUANTILES) {
+          sample(out, name, labels(m, String.valueOf(quantile)), interval.getValueAtPercentile(100 * quantile));
+        }
+        sample(out, name, labels(m, "1"), interval.getMaxValue());
+      }
+    }
+    family(out, "ycsb_interval_latency_average_microseconds", "gauge",
+        "Average latency of the last status interval.");
+    for (OneMeasurement m : measurements) {
+      OneMeasurement.IntervalSummary summary = summary(m);
+      if (summary != null && summary.getOperations() > 0) {
+        sample(out, "ycsb_interval_latency_average_microseconds", labels(m, null), summary.getAverageLatency());
+      }
+    }
+
+    family(out, "ycsb_operation_status", "counter", "Operations by return code.");
+    for (OneMeasurement m : measurements) {
+      for (Map.Entry<Status, Integer> entry : m.getStatusCounts().entrySet()) {
+        sample(out, "ycsb_operation_status_total",
+            labels(m, null) + ",status=\"" + escape(entry.getKey().getName()) + "\"", entry.getValue());
+      }
+    }
+
+    publishJVM(out);
+    out.append("# EOF\n");
+    page = out.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Renders the same JVM statistics as the status thread measures with measurement.trackjvm.
+   */
+  private static void publishJVM(StringBuilder out) {
+    family(out, "ycsb_jvm_threads", "gauge", "Active threads.");
+    sample(out, "ycsb_jvm_threads", "", Utils.getActiveThreadCount());
+    family(out, "ycsb_jvm_used_memory_bytes", "gauge", "Used heap memory.");
+    sample(out, "ycsb_jvm_used_memory_bytes", "", Utils.getUsedMemoryBytes());
+    double systemLoad = Utils.getSystemLoadAverage();
+    if (systemLoad >= 0) {
+      family(out, "ycsb_system_load_average", "gauge", "System load average of the last minute.");
+      sample(out, "ycsb_system_load_average", "", systemLoad);
+    }
+    family(out, "ycsb_jvm_gc_collections", "counter", "Garbage collections.");
+    sample(out, "ycsb_jvm_gc_collections_total", "", Utils.getGCTotalCollectionCount());
+    family(out, "ycsb_jvm_gc_time_seconds", "counter", "Time spent in garbage collections.");
+    sample(out, "ycsb_jvm_gc_time_seconds_total", "", Utils.getGCTotalTime() / 1000.0);
+  }
+
+  private static Histogram latencies(OneMeasurement m) {
+    return StatusThread.JVM_MEASUREMENTS.contains(m.getName()) ? null : m.getLastInterval();
+  }
+
+  private static OneMeasurement.IntervalSummary summary(OneMeasurement m) {
+    return StatusThread.JVM_MEASUREMENTS.contains(m.getName()) ? null : m.getLastIntervalSummary();
+  }
+
+  private static void family(StringBuilder out, String name, String type, String help) {
+    out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, Number value) {
+    out.append(name);
+    if (!labels.isEmpty()) {
+      out.append('{').append(labels).append('}');
+    }
+    out.append(' ').append(value).append('\n');
+  }
+
+  private static String labels(OneMeasurement m, String quantile) {
+    String labels = "operation=\"" + escape(m.getName()) + "\"";
+    return quantile == null ? labels : labels + ",quantile=\"" + quantile + "\"";
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+
+  private void serve(HttpExchange exchange) throws IOException {
+    byte[] body = page;
+    exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+    if ("HEAD".equals(exchange.getRequestMethod())) {
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+      return;
+    }
+    exchange.sendResponseHeaders(200, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.util.SplittableRandom;
+
+/**
+ * A ByteIterator that returns a slice of a pool of random printable bytes, starting at a random offset.
+ *
+ * The pool is generated once and shared read-only by all threads, so producing a value only costs copying it, while
+ * {@link RandomByteIterator} draws a random number for every six bytes. Values are distinct as long as they start at
+ * different offsets, but unlike those of RandomByteIterator they are substrings of the same megabyte of data, which
+ * matters for databases that deduplicate or compress values.
+ */
+public class PooledRandomByteIterator extends ByteIterator {
+  /** The size of the pool. A power of two, so that offsets wrap around with a mask. */
+  static final int POOL_SIZE = 1 << 20;
+
+  private static final long POOL_SEED = 0x5DEECE66DL;
+
+  /** Created on first use, so that workloads which don't use the pool don't generate it. */
+  private static final class Pool {
+    private static final byte[] BYTES = new byte[POOL_SIZE];
+
+    static {
+      // the same for every run, so that runs with a randomseed produce the same values
+      SplittableRandom random = new SplittableRandom(POOL_SEED);
+      for (int i = 0; i < BYTES.length; i++) {
+        // the printable ASCII characters from ' ' to '~'
+        BYTES[i] = (byte) (' ' + random.nextInt(95));
+      }
+    }
+  }
+
+  /**
+   * @return The shared pool; callers must not modify it.
+   */
+  static byte[] pool() {
+    return Pool.BYTES;
+  }
+
+  private final long len;
+  private final int start;
+  private long off;
+
+  public PooledRandomByteIterator(long len) {
+    this.len = len;
+    this.start = RandomStreams.current().nextInt(POOL_SIZE);
+    this.off = 0;
+  }
+
+  @Override
+  public boolean hasNext() {
+    return off < len;
+  }
+
+  @Override
+  public byte nextByte() {
+    return Pool.BYTES[(int) ((start + off++) & (POOL_SIZE - 1))];
+  }
+
+  @Override
+  public int nextBuf(byte[] buffer, int bufOffset) {
+    int end = (int) Math.min(buffer.length, bufOffset + bytesLeft());
+    int pos = bufOffset;
+    while (pos < end) {
+      int poolOff = (int) ((start + off) & (POOL_SIZE - 1));
+      int n = Math.min(end - pos, POOL_SIZE - poolOff);
+      System.arraycopy(Pool.BYTES, poolOff, buffer, pos, n);
+      pos += n;
+      off += n;
+    }
+    return pos;
+  }
+
+  @Override
+  public long bytesLeft() {
+    return len - off;
+  }
+
+  /** Rewinds to the first byte; the value is the same as before. */
+  @Override
+  public void reset() {
+    off = 0;
+  }
+
+  /** Consumes remaining contents of this object, and returns them as a byte array. */
+  @Override
+  public byte[] toArray() {
+    long left = bytesLeft();
+    if (left != (int) left) {
+      throw new ArrayIndexOutOfBoundsException("Too much data to fit in one array!");
+    }
+    byte[] ret = new byte[(int) left];
+    nextBuf(ret, 0);
+    return ret;
+  }
+}
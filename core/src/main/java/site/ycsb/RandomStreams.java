@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The source of randomness of generators and values. By default every thread uses {@link ThreadLocalRandom}. A
+ * workload can instead give a thread a reproducible stream, derived from a seed and a stream number, so that a run
+ * with the same seed and the same threads draws the same numbers.
+ *
+ * Streams are SplitMix64 generators ({@link SplittableRandom}). The stream with number i is the i-th split of a
+ * generator seeded with the seed, so streams of different numbers are statistically independent.
+ */
+public final class RandomStreams {
+  private RandomStreams() {
+    // not used
+  }
+
+  private static final ThreadLocal<Random> STREAM = new ThreadLocal<>();
+
+  /** Set once any thread has a seeded stream, so that unseeded runs skip the thread local. */
+  private static volatile boolean seeded = false;
+
+  /**
+   * @return The random number generator of the calling thread.
+   */
+  public static Random current() {
+    if (seeded) {
+      Random stream = STREAM.get();
+      if (stream != null) {
+        return stream;
+      }
+    }
+    return ThreadLocalRandom.current();
+  }
+
+  /**
+   * Create the stream with the given number for a seed.
+   *
+   * @param seed   The seed of the run.
+   * @param stream The non-negative number of the stream.
+   * @return A new generator, only to be used by one thread.
+   */
+  public static Random stream(long seed, int stream) {
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int i = 0; i < stream; i++) {
+      random.split();
+    }
+    return new SplitMix64Random(random.split());
+  }
+
+  /**
+   * Make the calling thread draw from the stream with the given number for a seed from now on.
+   *
+   * @param seed   The seed of the run.
+   * @param stream The non-negative number of the stream, e.g. derived from the thread id.
+   */
+  public static void seedCurrentThread(long seed, int stream) {
+    STREAM.set(stream(seed, stream));
+    seeded = true;
+  }
+
+  /**
+   * Make the calling thread use {@link ThreadLocalRandom} again.
+   */
+  public static void unseedCurrentThread() {
+    STREAM.remove();
+  }
+
+  /**
+   * Adapts a SplittableRandom to the Random API that generators use. It is not thread safe.
+   */
+  private static final class SplitMix64Random extends Random {
+    private static final long serialVersionUID = 1L;
+
+    private final SplittableRandom random;
+
+    private SplitMix64Random(SplittableRandom random) {
+      super(0);
+      this.random = random;
+    }
+
+    @Override
+    protected int next(int bits) {
+      return (int) (random.nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public int nextInt() {
+      return random.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+      return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong() {
+      return random.nextLong();
+    }
+
+    @Override
+    public double nextDouble() {
+      return random.nextDouble();
+    }
+
+    @Override
+    public boolean nextBoolean() {
+      return random.nextBoolean();
+    }
+  }
+}
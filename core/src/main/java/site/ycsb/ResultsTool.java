@@ -0,0 +1,323 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import org.HdrHistogram.Histogram;
+import site.ycsb.measurements.OneMeasurementHdrHistogram;
+import site.ycsb.measurements.ResultSet;
+import site.ycsb.measurements.exporter.MeasurementsExporter;
+import site.ycsb.measurements.exporter.TextMeasurementsExporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Merges and compares the results of clients, from their HdrHistogram interval logs and JSON exports.
+ *
+ * <pre>
+ * merge [options] path...
+ * compare [options] baseline candidate
+ * </pre>
+ * Paths are .hdr logs, .json exports or directories containing them, see {@link ResultSet}.
+ *
+ * Merge adds up the results of all paths, for example of clients that ran against one cluster at the same time,
+ * and exports them like a client, per interval and in total.
+ *
+ * Compare merges the baseline and the candidate paths separately, and reports the change of the median interval
+ * throughput and of the latency percentiles of each measurement. A change is flagged as a regression if it's worse
+ * than the threshold and significant: a one-sided Mann-Whitney U test of the values of the intervals of both has a
+ * p-value below alpha. The first and last interval, which are only partly covered by the run, are left out of the
+ * test. The measurements of the JVM made with measurement.trackjvm aren't compared. Exits with status 2 if there is
+ * a regression.
+ */
+public final class ResultsTool {
+  private static final String USAGE = String.join("\n",
+      "Usage: java site.ycsb.ResultsTool merge [options] path...",
+      "       java site.ycsb.ResultsTool compare [options] baseline candidate",
+      "Paths are HdrHistogram logs (.hdr), JSON exports (.json) or directories containing them.",
+      "Options:",
+      "  -interval seconds    length of the intervals the results are aligned to (default: 10)",
+      "  -percentiles list    comma separated latency percentiles (default: "
+          + OneMeasurementHdrHistogram.PERCENTILES_PROPERTY_DEFAULT + ")",
+      "  -exporter class      exporter of the merged results (default: text)",
+      "  -alpha p             significance level of the comparison (default: 0.05)",
+      "  -threshold percent   smallest change flagged as a regression (default: 5)");
+
+  private ResultsTool() {
+    // not used
+  }
+
+  /**
+   * A change between the baseline and the candidate.
+   */
+  static final class Change {
+    private final String metric;
+    private final String measurement;
+    private final double baseline;
+    private final double candidate;
+    private final double pvalue;
+    private final boolean regression;
+
+    Change(String metric, String measurement, double baseline, double candidate, double pvalue,
+           boolean regression) {
+      this.metric = metric;
+      this.measurement = measurement;
+      this.baseline = baseline;
+      this.candidate = candidate;
+      this.pvalue = pvalue;
+      this.regression = regression;
+    }
+
+    boolean isRegression() {
+      return regression;
+    }
+
+    @Override
+    public String toString() {
+      String verdict;
+      if (regression) {
+        verdict = "REGRESSION";
+      } else if (Double.isNaN(pvalue)) {
+        verdict = "too few intervals";
+      } else {
+        verdict = "ok";
+      }
+      return String.format("[%s], %s, %.2f, %.2f, %+.2f%%, p=%.4f, %s", metric, measurement, baseline, candidate,
+          100 * (candidate - baseline) / baseline, pvalue, verdict);
+    }
+  }
+
+  /**
+   * Compare the throughput and latency percentiles of the measurements in both result sets.
+   *
+   * @param baseline    The results to compare to.
+   * @param candidate   The results to compare.
+   * @param percentiles The latency percentiles to compare.
+   * @param alpha       The significance level.
+   * @param threshold   The smallest relative change that is a regression, such as 0.05 for 5%.
+   * @return The changes of each measurement in both.
+   */
+  static List<Change> compare(ResultSet baseline, ResultSet candidate, List<Double> percentiles, double alpha,
+                              double threshold) {
+    List<Change> changes = new ArrayList<>();
+    for (ResultSet.Result base : baseline.getResults()) {
+      ResultSet.Result cand = candidate.getResult(base.getName());
+      if (cand == null || StatusThread.JVM_MEASUREMENTS.contains(base.getName())) {
+        continue;
+      }
+      double[] baseThroughput = throughputs(base, baseline.getIntervalMs());
+      double[] candThroughput = throughputs(cand, candidate.getIntervalMs());
+      if (baseThroughput.length > 0 && candThroughput.length > 0) {
+        double p = mannWhitneyPValue(candThroughput, baseThroughput);
+        double from = median(baseThroughput);
+        double to = median(candThroughput);
+        changes.add(new Change(base.getName(), "Throughput(ops/sec)", from, to, p,
+            p < alpha && to < from * (1 - threshold)));
+      }
+      if (base.getTotal() == null || cand.getTotal() == null) {
+        continue;
+      }
+      for (Double percentile : percentiles) {
+        double p = mannWhitneyPValue(latencies(base, percentile), latencies(cand, percentile));
+        double from = base.getTotal().getValueAtPercentile(percentile);
+        double to = cand.getTotal().getValueAtPercentile(percentile);
+        changes.add(new Change(base.getName(), OneMeasurementHdrHistogram.ordinal(percentile)
+            + "PercentileLatency(us)", from, to, p, p < alpha && to > from * (1 + threshold)));
+      }
+    }
+    return changes;
+  }
+
+  /**
+   * @return The throughput of each interval but the first and last, 0 for the intervals without operations.
+   */
+  private static double[] throughputs(ResultSet.Result result, long intervalMs) {
+    List<Double> counts = inner(new ArrayList<>(result.getIntervalOperations().values()));
+    double[] throughputs = new double[counts.size()];
+    for (int i = 0; i < throughputs.length; i++) {
+      throughputs[i] = 1000.0 * counts.get(i) / intervalMs;
+    }
+    return throughputs;
+  }
+
+  /**
+   * @return The latency percentile of each interval with operations but the first and last.
+   */
+  private static double[] latencies(ResultSet.Result result, double percentile) {
+    List<Histogram> intervals = inner(new ArrayList<>(result.getIntervals().values()));
+    return intervals.stream().filter(h -> h.getTotalCount() > 0)
+        .mapToDouble(h -> h.getValueAtPercentile(percentile)).toArray();
+  }
+
+  private static <T> List<T> inner(List<T> intervals) {
+    return intervals.size() > 2 ? intervals.subList(1, intervals.size() - 1) : intervals;
+  }
+
+  private static double median(double[] values) {
+    double[] sorted = values.clone();
+    Arrays.sort(sorted);
+    int middle = sorted.length / 2;
+    return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+  }
+
+  /**
+   * The one-sided Mann-Whitney U test, with the normal approximation corrected for ties and continuity.
+   *
+   * @return The p-value of the values of higher tending to be greater than those of lower, or NaN if either has
+   * fewer than 2 values.
+   */
+  static double mannWhitneyPValue(double[] lower, double[] higher) {
+    int n1 = lower.length;
+    int n2 = higher.length;
+    if (n1 < 2 || n2 < 2) {
+      return Double.NaN;
+    }
+    int n = n1 + n2;
+    double[][] all = new double[n][];
+    for (int k = 0; k < n1; k++) {
+      all[k] = new double[] {lower[k], 0};
+    }
+    for (int k = 0; k < n2; k++) {
+      all[n1 + k] = new double[] {higher[k], 1};
+    }
+    Arrays.sort(all, (a, b) -> Double.compare(a[0], b[0]));
+    double rankSum = 0;
+    double ties = 0;
+    int i = 0;
+    while (i < n) {
+      int j = i;
+      while (j < n && all[j][0] == all[i][0]) {
+        j++;
+      }
+      // ranks i + 1 to j share their average
+      double rank = (i + 1 + j) / 2.0;
+      for (int k = i; k < j; k++) {
+        rankSum += all[k][1] * rank;
+      }
+      double t = j - i;
+      ties += t * t * t - t;
+      i = j;
+    }
+    double u = rankSum - n2 * (n2 + 1) / 2.0;
+    double mean = n1 * (double) n2 / 2;
+    double variance = n1 * (double) n2 / 12 * ((n + 1) - ties / (n * (double) (n - 1)));
+    if (variance == 0) {
+      return 1;
+    }
+    double z = (u - mean - 0.5) / Math.sqrt(variance);
+    return 1 - normalCdf(z);
+  }
+
+  private static double normalCdf(double z) {
+    // Abramowitz and Stegun 7.1.26, accurate to 1.5e-7
+    double x = Math.abs(z) / Math.sqrt(2);
+    double t = 1 / (1 + 0.3275911 * x);
+    double erf = 1 - t * (0.254829592 + t * (-0.284496736 + t * (1.421413741 + t * (-1.453152027
+        + t * 1.061405429)))) * Math.exp(-x * x);
+    return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+  }
+
+  private static void usage() {
+    System.err.println(USAGE);
+    System.exit(1);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1 || !(args[0].equals("merge") || args[0].equals("compare"))) {
+      usage();
+    }
+    long intervalMs = 10000;
+    List<Double> percentiles =
+        OneMeasurementHdrHistogram.getPercentileValues(OneMeasurementHdrHistogram.PERCENTILES_PROPERTY_DEFAULT);
+    String exporterClass = TextMeasurementsExporter.class.getName();
+    double alpha = 0.05;
+    double threshold = 0.05;
+    List<String> paths = new ArrayList<>();
+    for (int i = 1; i < args.length; i++) {
+      if (!args[i].startsWith("-")) {
+        paths.add(args[i]);
+      } else if (i + 1 == args.length) {
+        usage();
+      } else if (args[i].equals("-interval")) {
+        intervalMs = Math.round(Double.parseDouble(args[++i]) * 1000);
+      } else if (args[i].equals("-percentiles")) {
+        percentiles = OneMeasurementHdrHistogram.getPercentileValues(args[++i]);
+      } else if (args[i].equals("-exporter")) {
+        exporterClass = args[++i];
+      } else if (args[i].equals("-alpha")) {
+        alpha = Double.parseDouble(args[++i]);
+      } else if (args[i].equals("-threshold")) {
+        threshold = Double.parseDouble(args[++i]) / 100;
+      } else {
+        usage();
+      }
+    }
+
+    if (args[0].equals("merge")) {
+      if (paths.isEmpty()) {
+        usage();
+      }
+      ResultSet merged = new ResultSet(intervalMs);
+      for (String path : paths) {
+        merged.add(Paths.get(path));
+      }
+      MeasurementsExporter exporter;
+      try {
+        exporter = (MeasurementsExporter) Class.forName(exporterClass).getConstructor(OutputStream.class)
+            .newInstance(System.out);
+      } catch (Exception e) {
+        System.err.println("Could not find exporter " + exporterClass + ", will use default text reporter.");
+        exporter = new TextMeasurementsExporter(System.out);
+      }
+      try {
+        merged.export(exporter, percentiles);
+      } finally {
+        exporter.close();
+      }
+      return;
+    }
+
+    if (paths.size() != 2) {
+      usage();
+    }
+    ResultSet baseline = new ResultSet(intervalMs);
+    baseline.add(Paths.get(paths.get(0)));
+    ResultSet candidate = new ResultSet(intervalMs);
+    candidate.add(Paths.get(paths.get(1)));
+    boolean regression = report(compare(baseline, candidate, percentiles, alpha, threshold), System.out);
+    System.exit(regression ? 2 : 0);
+  }
+
+  /**
+   * @return Whether any change is a regression.
+   */
+  private static boolean report(List<Change> changes, PrintStream out) {
+    out.println("[metric], measurement, baseline, candidate, change, p-value, verdict");
+    boolean regression = false;
+    for (Change change : changes) {
+      out.println(change);
+      regression |= change.isRegression();
+    }
+    return regression;
+  }
+}
@@ -18,10 +18,19 @@
 package site.ycsb;
 
 import site.ycsb.measurements.Measurements;
+import site.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +38,12 @@ import java.util.concurrent.TimeUnit;
  * A thread to periodically show the status of the experiment to reassure you that progress is being made.
  */
 public class StatusThread extends Thread {
+  /**
+   * The names of the measurements of the JVM made with measurement.trackjvm, which aren't operations.
+   */
+  public static final Set<String> JVM_MEASUREMENTS = Collections.unmodifiableSet(new HashSet<>(
+      Arrays.asList("THREAD_COUNT", "USED_MEM_MB", "SYS_LOAD_AVG", "GCS", "GCS_TIME")));
+
   // Counts down each of the clients completing
   private final CountDownLatch completeLatch;
 
@@ -44,6 +59,12 @@ public class StatusThread extends Thread {
   private final String label;
   private final boolean standardstatus;
 
+  // The endpoint the stats are published to, if any
+  private MetricsServer metricsServer;
+
+  // The exporter the stats of each interval are written to, if any
+  private MeasurementsExporter intervalExporter;
+
   // The interval for reporting status.
   private long sleeptimeNs;
 
@@ -95,6 +116,24 @@ public class StatusThread extends Thread {
     this.trackJVMStats = trackJVMStats;
   }
 
+  /**
+   * Publishes the stats of each interval to a metrics endpoint. Must be called before the thread is started.
+   *
+   * @param server The endpoint to publish the stats to.
+   */
+  public void setMetricsServer(MetricsServer server) {
+    metricsServer = server;
+  }
+
+  /**
+   * Writes the stats of each interval to an exporter. Must be called before the thread is started.
+   *
+   * @param exporter The exporter to write the stats of each interval to.
+   */
+  public void setIntervalExporter(MeasurementsExporter exporter) {
+    intervalExporter = exporter;
+  }
+
   /**
    * Run and periodically report status.
    */
@@ -174,16 +213,39 @@ public class StatusThread extends Thread {
       msg.append("est completion in ").append(RemainingFormatter.format(estremaining));
     }
 
-    msg.append(Measurements.getMeasurements().getSummary());
+    msg.append(measurements.getSummary());
 
     System.err.println(msg);
 
+    if (metricsServer != null) {
+      // the summary just moved the interval of every measurement forward
+      metricsServer.publish(totalops, curthroughput, measurements.getAllMeasurements());
+    }
+    if (intervalExporter != null && endIntervalMs > startIntervalMs) {
+      exportInterval(startIntervalMs, endIntervalMs, totalops - lastTotalOps, curthroughput);
+    }
+
     if (standardstatus) {
       System.out.println(msg);
     }
     return totalops;
   }
 
+  /**
+   * Exports the overall throughput of the interval, followed by the measurements of each operation.
+   */
+  private void exportInterval(long startIntervalMs, long endIntervalMs, long ops, double curthroughput) {
+    Map<String, Number> overall = new LinkedHashMap<>();
+    overall.put("Operations", ops);
+    overall.put("Throughput(ops/sec)", curthroughput);
+    try {
+      intervalExporter.writeInterval("OVERALL", startIntervalMs, endIntervalMs, overall);
+      measurements.exportIntervals(intervalExporter, startIntervalMs, endIntervalMs);
+    } catch (IOException e) {
+      System.err.println("Could not export the interval, error: " + e.getMessage());
+    }
+  }
+
   /**
    * Waits for all of the client to finish or the deadline to expire.
    *
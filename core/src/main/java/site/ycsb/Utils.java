@@ -64,6 +64,22 @@ public final class Utils {
     return Math.abs(hashval);
   }
 
+  /**
+   * 64 bit FNV-1a hash of the chars of a string.
+   *
+   * @param val The string to hash.
+   * @return The non-negative hash value
+   */
+  public static long fnvhash64(String val) {
+    long hashval = FNV_OFFSET_BASIS_64;
+    for (int i = 0; i < val.length(); i++) {
+      hashval = hashval ^ val.charAt(i);
+      hashval = hashval * FNV_PRIME_64;
+    }
+    // unlike Math.abs, masking the sign bit can't overflow to a negative value
+    return hashval & Long.MAX_VALUE;
+  }
+
   /**
    * Reads a big-endian 8-byte long from an offset in the given array.
    * @param bytes The array to read from.
@@ -132,6 +148,7 @@ public final class Utils {
    * count can be in any state.
    * For a more accurate count we could use {@link Thread.getAllStackTraces().size()}
    * but that freezes the JVM and incurs a high overhead.
+   * Virtual threads are not included in the count.
    * @return An estimated thread count, good for showing the thread count
    * over time.
    */
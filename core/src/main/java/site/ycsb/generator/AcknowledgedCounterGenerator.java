@@ -16,31 +16,80 @@
  */
 package site.ycsb.generator;
 
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * A CounterGenerator that reports generated integers via lastInt()
  * only after they have been acknowledged.
+ *
+ * Acknowledgements are tracked without locks in a ring of slots. The slot of a value holds the
+ * generation (the value divided by the window size) of the last acknowledged value that mapped to
+ * it, and the acknowledged limit is advanced over contiguous acknowledged values with a CAS. At
+ * most window size values can be outstanding; beyond that, nextValue() waits for the oldest
+ * outstanding value to be acknowledged.
  */
 public class AcknowledgedCounterGenerator extends CounterGenerator {
-  /** The size of the window of pending id ack's. 2^20 = {@value} */
+  /** The default size of the window of pending id ack's. 2^20 = {@value} */
   static final int WINDOW_SIZE = Integer.rotateLeft(1, 20);
 
-  /** The mask to use to turn an id into a slot in {@link #window}. */
-  private static final int WINDOW_MASK = WINDOW_SIZE - 1;
+  /** How long to wait before checking again whether the window has room. */
+  private static final long BACKOFF_NANOS = 10000;
 
-  private final ReentrantLock lock;
-  private final boolean[] window;
-  private volatile long limit;
+  private final int windowSize;
+  /** The mask to use to turn an id into a slot in {@link #window}. */
+  private final long windowMask;
+  private final int windowShift;
+  private final AtomicIntegerArray window;
+  private final AtomicLong limit;
 
   /**
    * Create a counter that starts at countstart.
    */
   public AcknowledgedCounterGenerator(long countstart) {
+    this(countstart, WINDOW_SIZE);
+  }
+
+  /**
+   * Create a counter that starts at countstart and allows up to windowSize unacknowledged values.
+   *
+   * @param countstart The first value.
+   * @param windowSize The maximum number of unacknowledged values, rounded up to a power of two.
+   */
+  public AcknowledgedCounterGenerator(long countstart, int windowSize) {
     super(countstart);
-    lock = new ReentrantLock();
-    window = new boolean[WINDOW_SIZE];
-    limit = countstart - 1;
+    if (windowSize < 1 || windowSize > 1 << 30) {
+      throw new IllegalArgumentException("Window size must be between 1 and 2^30: " + windowSize);
+    }
+    this.windowSize = windowSize == 1 ? 1 : Integer.highestOneBit(windowSize - 1) << 1;
+    windowMask = this.windowSize - 1;
+    windowShift = Integer.numberOfTrailingZeros(this.windowSize);
+    window = new AtomicIntegerArray(this.windowSize);
+    // no value at or after countstart can match these generations
+    int initial = generation(countstart) - 1;
+    for (int i = 0; i < this.windowSize; i++) {
+      window.set(i, initial);
+    }
+    limit = new AtomicLong(countstart - 1);
+  }
+
+  public int getWindowSize() {
+    return windowSize;
+  }
+
+  /**
+   * Generate the next value. If windowSize values are already unacknowledged, waits until the oldest of them
+   * has been acknowledged.
+   */
+  @Override
+  public Long nextValue() {
+    long value = super.nextValue();
+    // the slot of value is free once the value one window before it has been acknowledged
+    while (value - limit.get() > windowSize) {
+      LockSupport.parkNanos(BACKOFF_NANOS);
+    }
+    return value;
   }
 
   /**
@@ -49,40 +98,35 @@ public class AcknowledgedCounterGenerator extends CounterGenerator {
    */
   @Override
   public Long lastValue() {
-    return limit;
+    return limit.get();
   }
 
   /**
    * Make a generated counter value available via lastInt().
    */
   public void acknowledge(long value) {
-    final int currentSlot = (int)(value & WINDOW_MASK);
-    if (window[currentSlot]) {
-      throw new RuntimeException("Too many unacknowledged insertion keys.");
-    }
-
-    window[currentSlot] = true;
-
-    if (lock.tryLock()) {
-      // move a contiguous sequence from the window
-      // over to the "limit" variable
-      try {
-        // Only loop through the entire window at most once.
-        long beforeFirstSlot = (limit & WINDOW_MASK);
-        long index;
-        for (index = limit + 1; index != beforeFirstSlot; ++index) {
-          int slot = (int)(index & WINDOW_MASK);
-          if (!window[slot]) {
-            break;
-          }
+    window.set(slot(value), generation(value));
 
-          window[slot] = false;
-        }
-
-        limit = index - 1;
-      } finally {
-        lock.unlock();
+    // move a contiguous sequence from the window over to the "limit" variable
+    while (true) {
+      long current = limit.get();
+      long next = current + 1;
+      while (window.get(slot(next)) == generation(next)) {
+        ++next;
+      }
+      if (next == current + 1) {
+        // nothing to advance over, whoever acknowledges current + 1 will continue
+        return;
       }
+      limit.compareAndSet(current, next - 1);
     }
   }
+
+  private int slot(long value) {
+    return (int) (value & windowMask);
+  }
+
+  private int generation(long value) {
+    return (int) (value >>> windowShift);
+  }
 }
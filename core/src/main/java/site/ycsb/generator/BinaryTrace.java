@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A memory-mapped trace of operations in a compact binary format, for replaying recorded access streams.
+ *
+ * The file starts with a 16 byte header: the magic number {@link #MAGIC}, an int of flags ({@link #TIMESTAMPS} if
+ * the records have timestamps) and the number of records as a long. Each record is 16 bytes, or 24 with timestamps:
+ * <ul>
+ * <li>the operation, one byte, e.g. {@link #READ}, followed by 3 bytes of padding,</li>
+ * <li>the value size in bytes as an int; for scans, the number of records to scan,</li>
+ * <li>the key id as a long,</li>
+ * <li>with timestamps, the time of the operation in microseconds as a long.</li>
+ * </ul>
+ * All numbers are big-endian. Records are read with absolute gets on shared read-only mappings, so any number of
+ * threads can read a trace without synchronization.
+ */
+public final class BinaryTrace implements Closeable {
+  /** "YTRC". */
+  public static final int MAGIC = 0x59545243;
+  /** The flag for records with timestamps. */
+  public static final int TIMESTAMPS = 1;
+
+  public static final byte READ = 0;
+  public static final byte UPDATE = 1;
+  public static final byte INSERT = 2;
+  public static final byte SCAN = 3;
+  public static final byte READMODIFYWRITE = 4;
+  public static final byte DELETE = 5;
+
+  /** The names of the operations, indexed by their code. */
+  private static final String[] OPERATIONS = {"READ", "UPDATE", "INSERT", "SCAN", "READMODIFYWRITE", "DELETE"};
+
+  static final int HEADER_SIZE = 16;
+
+  private final FileChannel channel;
+  private final ByteBuffer[] segments;
+  private final int recordSize;
+  private final long recordsPerSegment;
+  private final long size;
+  private final boolean timestamps;
+
+  private BinaryTrace(FileChannel channel) throws IOException {
+    this.channel = channel;
+    if (channel.size() < HEADER_SIZE) {
+      throw new IOException("Not a binary trace");
+    }
+    ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+    if (header.getInt(0) != MAGIC) {
+      throw new IOException("Not a binary trace");
+    }
+    timestamps = (header.getInt(4) & TIMESTAMPS) != 0;
+    size = header.getLong(8);
+    recordSize = recordSize(timestamps);
+    if (channel.size() < HEADER_SIZE + size * recordSize) {
+      throw new IOException("Truncated binary trace: expected " + size + " records");
+    }
+    // a mapping can't be larger than 2GB, so larger traces are mapped in segments of whole records
+    recordsPerSegment = Integer.MAX_VALUE / recordSize;
+    segments = new ByteBuffer[(int) ((size + recordsPerSegment - 1) / recordsPerSegment)];
+    for (int i = 0; i < segments.length; i++) {
+      long first = i * recordsPerSegment;
+      long records = Math.min(recordsPerSegment, size - first);
+      segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * recordSize,
+          records * recordSize);
+    }
+  }
+
+  /**
+   * Map a binary trace.
+   *
+   * @param file The trace file.
+   * @return The trace.
+   * @throws IOException if the file can't be read or is not a binary trace.
+   */
+  public static BinaryTrace open(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      return new BinaryTrace(channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  static int recordSize(boolean timestamps) {
+    return timestamps ? 24 : 16;
+  }
+
+  /**
+   * @return The number of records.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @return true if the records have timestamps.
+   */
+  public boolean hasTimestamps() {
+    return timestamps;
+  }
+
+  private ByteBuffer segment(long record) {
+    return segments[(int) (record / recordsPerSegment)];
+  }
+
+  private int offset(long record) {
+    return (int) (record % recordsPerSegment) * recordSize;
+  }
+
+  /**
+   * @param record The index of the record.
+   * @return The operation of the record, e.g. {@link #READ}.
+   */
+  public byte operation(long record) {
+    return segment(record).get(offset(record));
+  }
+
+  /**
+   * @param record The index of the record.
+   * @return The value size of the record, or the scan length for a scan.
+   */
+  public int valueSize(long record) {
+    return segment(record).getInt(offset(record) + 4);
+  }
+
+  /**
+   * @param record The index of the record.
+   * @return The key id of the record.
+   */
+  public long key(long record) {
+    return segment(record).getLong(offset(record) + 8);
+  }
+
+  /**
+   * @param record The index of the record.
+   * @return The timestamp of the record in microseconds, or 0 if the trace has no timestamps.
+   */
+  public long timestamp(long record) {
+    return timestamps ? segment(record).getLong(offset(record) + 16) : 0;
+  }
+
+  /**
+   * @param operation An operation code.
+   * @return The name of the operation, e.g. "READ".
+   */
+  public static String operationName(byte operation) {
+    return OPERATIONS[operation];
+  }
+
+  /**
+   * @param name The name of an operation, in any case.
+   * @return The code of the operation, or -1 if there is no operation with that name.
+   */
+  public static byte operationCode(String name) {
+    for (byte i = 0; i < OPERATIONS.length; i++) {
+      if (OPERATIONS[i].equalsIgnoreCase(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Writes a binary trace.
+   */
+  public static final class Writer implements Closeable {
+    private final FileChannel channel;
+    private final boolean timestamps;
+    private final ByteBuffer buffer;
+    private long size;
+
+    /**
+     * Create or overwrite a trace file.
+     *
+     * @param file       The trace file.
+     * @param timestamps Whether the records have timestamps.
+     * @throws IOException if the file can't be written.
+     */
+    public Writer(Path file, boolean timestamps) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+      this.timestamps = timestamps;
+      this.buffer = ByteBuffer.allocate(recordSize(timestamps) * 4096);
+      // the record count is filled in by close()
+      buffer.putInt(MAGIC).putInt(timestamps ? TIMESTAMPS : 0).putLong(0);
+    }
+
+    /**
+     * @return true if the records have timestamps.
+     */
+    public boolean hasTimestamps() {
+      return timestamps;
+    }
+
+    /**
+     * Append a record.
+     *
+     * @param operation The operation, e.g. {@link #READ}.
+     * @param key       The key id.
+     * @param valueSize The value size, or the scan length for a scan.
+     * @param timestamp The timestamp in microseconds; ignored if the trace has no timestamps.
+     * @throws IOException if the file can't be written.
+     */
+    public void write(byte operation, long key, int valueSize, long timestamp) throws IOException {
+      if (buffer.remaining() < recordSize(timestamps)) {
+        flush();
+      }
+      buffer.put(operation).put((byte) 0).putShort((short) 0).putInt(valueSize).putLong(key);
+      if (timestamps) {
+        buffer.putLong(timestamp);
+      }
+      size++;
+    }
+
+    private void flush() throws IOException {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        flush();
+        ByteBuffer count = ByteBuffer.allocate(8).putLong(0, size);
+        while (count.hasRemaining()) {
+          channel.write(count, 8 + count.position());
+        }
+      } finally {
+        channel.close();
+      }
+    }
+  }
+}
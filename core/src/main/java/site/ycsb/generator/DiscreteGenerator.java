@@ -17,28 +17,88 @@
 
 package site.ycsb.generator;
 
+import site.ycsb.RandomStreams;
+
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.List;
 
 import static java.util.Objects.requireNonNull;
 
 /**
  * Generates a distribution by choosing from a discrete set of values.
+ *
+ * The values are drawn in constant time from an alias table (Vose's method), which is built from the
+ * weights on the first draw. No values can be added after that.
  */
 public class DiscreteGenerator extends Generator<String> {
-  private static class Pair {
-    private double weight;
-    private String value;
+  private final List<String> values = new ArrayList<>();
+  private final List<Double> weights = new ArrayList<>();
+  private String lastvalue;
+
+  /**
+   * The alias table, null until the first draw.
+   */
+  private volatile AliasTable table;
+
+  private static final class AliasTable {
+    /** Probability of keeping column i rather than taking its alias. */
+    private final double[] probability;
+    private final int[] alias;
+
+    AliasTable(List<Double> weights) {
+      int n = weights.size();
+      probability = new double[n];
+      alias = new int[n];
+
+      double sum = 0;
+      for (double weight : weights) {
+        sum += weight;
+      }
+      if (!(sum > 0)) {
+        throw new IllegalStateException("The weights of a DiscreteGenerator must have a positive sum: " + weights);
+      }
 
-    Pair(double weight, String value) {
-      this.weight = weight;
-      this.value = requireNonNull(value);
+      // scale so that the average column is 1, then pair each small column with a large one
+      double[] scaled = new double[n];
+      int[] small = new int[n];
+      int[] large = new int[n];
+      int smallCount = 0;
+      int largeCount = 0;
+      for (int i = 0; i < n; i++) {
+        scaled[i] = weights.get(i) * n / sum;
+        if (scaled[i] < 1.0) {
+          small[smallCount++] = i;
+        } else {
+          large[largeCount++] = i;
+        }
+      }
+      while (smallCount > 0 && largeCount > 0) {
+        int s = small[--smallCount];
+        int l = large[--largeCount];
+        probability[s] = scaled[s];
+        alias[s] = l;
+        scaled[l] = (scaled[l] + scaled[s]) - 1.0;
+        if (scaled[l] < 1.0) {
+          small[smallCount++] = l;
+        } else {
+          large[largeCount++] = l;
+        }
+      }
+      // whatever is left is 1 up to rounding errors
+      while (largeCount > 0) {
+        probability[large[--largeCount]] = 1.0;
+      }
+      while (smallCount > 0) {
+        probability[small[--smallCount]] = 1.0;
+      }
     }
-  }
 
-  private final Collection<Pair> values = new ArrayList<>();
-  private String lastvalue;
+    int next() {
+      double r = RandomStreams.current().nextDouble() * probability.length;
+      int column = (int) r;
+      return r - column < probability[column] ? column : alias[column];
+    }
+  }
 
   public DiscreteGenerator() {
     lastvalue = null;
@@ -46,28 +106,36 @@ public class DiscreteGenerator extends Generator<String> {
 
   /**
    * Generate the next string in the distribution.
+   *
+   * @return The next value, or null if no values have been added.
    */
   @Override
   public String nextValue() {
-    double sum = 0;
-
-    for (Pair p : values) {
-      sum += p.weight;
-    }
-
-    double val = ThreadLocalRandom.current().nextDouble();
+    int index = nextIndex();
+    return index < 0 ? null : values.get(index);
+  }
 
-    for (Pair p : values) {
-      double pw = p.weight / sum;
-      if (val < pw) {
-        return p.value;
+  /**
+   * Generate the index of the next value in the distribution, without allocating.
+   *
+   * @return The index of the value, in the order the values were added, or -1 if no values have been added.
+   */
+  public int nextIndex() {
+    AliasTable t = table;
+    if (t == null) {
+      t = buildTable();
+      if (t == null) {
+        return -1;
       }
-
-      val -= pw;
     }
+    return t.next();
+  }
 
-    throw new AssertionError("oops. should not get here.");
-
+  private synchronized AliasTable buildTable() {
+    if (table == null && !values.isEmpty()) {
+      table = new AliasTable(weights);
+    }
+    return table;
   }
 
   /**
@@ -83,8 +151,34 @@ public class DiscreteGenerator extends Generator<String> {
     return lastvalue;
   }
 
-  public void addValue(double weight, String value) {
-    values.add(new Pair(weight, value));
+  /**
+   * @return The number of values that have been added.
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * @param index The index of a value, in the order the values were added.
+   * @return The value.
+   */
+  public String getValue(int index) {
+    return values.get(index);
+  }
+
+  /**
+   * Add a value to the distribution.
+   *
+   * @param weight The relative weight of the value.
+   * @param value The value.
+   * @throws IllegalStateException if values have already been drawn from this generator.
+   */
+  public synchronized void addValue(double weight, String value) {
+    if (table != null) {
+      throw new IllegalStateException("Values can't be added to a DiscreteGenerator after the first draw");
+    }
+    values.add(requireNonNull(value));
+    weights.add(weight);
   }
 
 }
@@ -17,7 +17,7 @@
 
 package site.ycsb.generator;
 
-import java.util.concurrent.ThreadLocalRandom;
+import site.ycsb.RandomStreams;
 
 /**
  * A generator of an exponential distribution. It produces a sequence
@@ -66,7 +66,7 @@ public class ExponentialGenerator extends NumberGenerator {
    */
   @Override
   public Double nextValue() {
-    return -Math.log(ThreadLocalRandom.current().nextDouble()) / gamma;
+    return -Math.log(RandomStreams.current().nextDouble()) / gamma;
   }
 
   @Override
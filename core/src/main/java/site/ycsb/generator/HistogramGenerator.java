@@ -16,11 +16,13 @@
  */
 package site.ycsb.generator;
 
+import site.ycsb.RandomStreams;
+
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Random;
+import java.util.TreeMap;
 
 /**
  * Generate integers according to a histogram distribution.  The histogram
@@ -31,74 +33,149 @@ import java.util.concurrent.ThreadLocalRandom;
  *
  * The minimum value this distribution returns is blockSize (not zero).
  *
+ * A histogram file is either in the block format, a first line "BlockSize&lt;TAB&gt;n" followed by one
+ * "bucket&lt;TAB&gt;count" line per bucket, or in the compact format, with one "value count" line (separated
+ * by whitespace or a comma) for each value that occurs, e.g. the value sizes exported from a production
+ * system. Values missing from a compact histogram never occur, and in both formats lines starting with '#'
+ * are skipped.
+ *
+ * The histogram is kept as the cumulative counts of the values that occur, so drawing a value is a binary
+ * search, however many buckets the histogram has.
  */
 public class HistogramGenerator extends NumberGenerator {
 
-  private final long blockSize;
-  private final long[] buckets;
-  private long area;
-  private long weightedArea = 0;
-  private double meanSize = 0;
+  /** The values that occur, in increasing order. */
+  private final long[] values;
+  /** The cumulative counts: values[i] is drawn for a random number in [cumulative[i - 1], cumulative[i]). */
+  private final long[] cumulative;
+  private final long area;
+  private final double meanSize;
 
   public HistogramGenerator(String histogramfile) throws IOException {
-    try (BufferedReader in = new BufferedReader(new FileReader(histogramfile))) {
-      String str;
-      String[] line;
+    this(read(histogramfile));
+  }
 
-      ArrayList<Integer> a = new ArrayList<>();
+  public HistogramGenerator(long[] buckets, int blockSize) {
+    this(blocks(buckets, blockSize));
+  }
 
-      str = in.readLine();
-      if (str == null) {
-        throw new IOException("Empty input file!\n");
+  /**
+   * Create a generator of the values of a histogram.
+   *
+   * @param values The values, in increasing order.
+   * @param counts How often each value occurs.
+   */
+  public HistogramGenerator(long[] values, long[] counts) {
+    if (values.length != counts.length) {
+      throw new IllegalArgumentException("Got " + values.length + " values but " + counts.length + " counts");
+    }
+    int n = 0;
+    for (long count : counts) {
+      if (count < 0) {
+        throw new IllegalArgumentException("Negative count in histogram: " + count);
       }
-      line = str.split("\t");
-      if (line[0].compareTo("BlockSize") != 0) {
-        throw new IOException("First line of histogram is not the BlockSize!\n");
+      if (count > 0) {
+        n++;
       }
-      blockSize = Integer.parseInt(line[1]);
-
-      while ((str = in.readLine()) != null) {
-        // [0] is the bucket, [1] is the value
-        line = str.split("\t");
-
-        a.add(Integer.parseInt(line[0]), Integer.parseInt(line[1]));
+    }
+    if (n == 0) {
+      throw new IllegalArgumentException("Empty histogram");
+    }
+    this.values = new long[n];
+    this.cumulative = new long[n];
+    long sum = 0;
+    double weighted = 0;
+    int j = 0;
+    for (int i = 0; i < values.length; i++) {
+      if (counts[i] == 0) {
+        continue;
       }
-      buckets = new long[a.size()];
-      for (int i = 0; i < a.size(); i++) {
-        buckets[i] = a.get(i);
+      if (j > 0 && values[i] <= this.values[j - 1]) {
+        throw new IllegalArgumentException("Histogram values not in increasing order at " + values[i]);
       }
+      sum += counts[i];
+      weighted += (double) values[i] * counts[i];
+      this.values[j] = values[i];
+      this.cumulative[j] = sum;
+      j++;
     }
-    init();
+    this.area = sum;
+    this.meanSize = weighted / sum;
   }
 
-  public HistogramGenerator(long[] buckets, int blockSize) {
-    this.blockSize = blockSize;
-    this.buckets = buckets;
-    init();
+  private HistogramGenerator(TreeMap<Long, Long> histogram) {
+    this(histogram.keySet().stream().mapToLong(Long::longValue).toArray(),
+        histogram.values().stream().mapToLong(Long::longValue).toArray());
   }
 
-  private void init() {
+  /**
+   * @return The histogram of a block format histogram, bucket i holding the values (i + 1) * blockSize.
+   */
+  private static TreeMap<Long, Long> blocks(long[] buckets, long blockSize) {
+    TreeMap<Long, Long> histogram = new TreeMap<>();
     for (int i = 0; i < buckets.length; i++) {
-      area += buckets[i];
-      weightedArea += i * buckets[i];
+      histogram.put((i + 1) * blockSize, buckets[i]);
+    }
+    return histogram;
+  }
+
+  private static TreeMap<Long, Long> read(String histogramfile) throws IOException {
+    TreeMap<Long, Long> histogram = new TreeMap<>();
+    long blockSize = 0;
+    try (BufferedReader in = new BufferedReader(new FileReader(histogramfile))) {
+      String str;
+      int lineno = 0;
+      while ((str = in.readLine()) != null) {
+        lineno++;
+        str = str.trim();
+        if (str.isEmpty() || str.startsWith("#")) {
+          continue;
+        }
+        String[] line = str.split("[\\s,]+");
+        if (line.length != 2) {
+          throw new IOException("Line " + lineno + " of histogram is not \"value count\": " + str);
+        }
+        try {
+          if (line[0].equals("BlockSize")) {
+            if (blockSize != 0 || !histogram.isEmpty()) {
+              throw new IOException("BlockSize must be the first line of the histogram");
+            }
+            blockSize = Long.parseLong(line[1]);
+            if (blockSize <= 0) {
+              throw new IOException("BlockSize must be positive: " + blockSize);
+            }
+            continue;
+          }
+          // in the block format, [0] is the bucket, [1] is the value
+          long value = blockSize == 0 ? Long.parseLong(line[0]) : (Long.parseLong(line[0]) + 1) * blockSize;
+          histogram.merge(value, Long.parseLong(line[1]), Long::sum);
+        } catch (NumberFormatException e) {
+          throw new IOException("Line " + lineno + " of histogram has a malformed number: " + str, e);
+        }
+      }
     }
-    // calculate average file size
-    meanSize = ((double) blockSize) * ((double) weightedArea) / (area);
+    if (histogram.values().stream().allMatch(count -> count == 0)) {
+      throw new IOException("Empty input file!\n");
+    }
+    return histogram;
   }
 
   @Override
   public Long nextValue() {
-    int number = ThreadLocalRandom.current().nextInt((int) area);
-    int i;
-
-    for (i = 0; i < (buckets.length - 1); i++) {
-      number -= buckets[i];
-      if (number <= 0) {
-        return (i + 1) * blockSize;
+    Random random = RandomStreams.current();
+    long number = area <= Integer.MAX_VALUE ? random.nextInt((int) area) : Math.floorMod(random.nextLong(), area);
+    // the first bucket whose cumulative count is above the number
+    int low = 0;
+    int high = cumulative.length - 1;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (cumulative[mid] > number) {
+        high = mid;
+      } else {
+        low = mid + 1;
       }
     }
-
-    return i * blockSize;
+    return values[low];
   }
 
   @Override
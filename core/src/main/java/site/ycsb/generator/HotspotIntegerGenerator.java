@@ -16,8 +16,9 @@
  */
 package site.ycsb.generator;
 
+import site.ycsb.RandomStreams;
+
 import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Generate integers resembling a hotspot distribution where x% of operations
@@ -66,7 +67,7 @@ public class HotspotIntegerGenerator extends NumberGenerator {
     this.upperBound = upperBound;
     this.hotsetFraction = hotsetFraction;
     long interval = upperBound - lowerBound + 1;
-    this.hotInterval = (int) (interval * hotsetFraction);
+    this.hotInterval = (long) (interval * hotsetFraction);
     this.coldInterval = interval - hotInterval;
     this.hotOpnFraction = hotOpnFraction;
   }
@@ -74,7 +75,7 @@ public class HotspotIntegerGenerator extends NumberGenerator {
   @Override
   public Long nextValue() {
     long value = 0;
-    Random random = ThreadLocalRandom.current();
+    Random random = RandomStreams.current();
     if (random.nextDouble() < hotOpnFraction) {
       // Choose a value from the hot set.
       value = lowerBound + Math.abs(random.nextLong()) % hotInterval;
@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import site.ycsb.Utils;
+
+/**
+ * Derives groups of correlated keys from primary keys, such as a session together with the user's profile, or a
+ * node of a graph together with its neighbours. The group of a primary key is always the same: the primary key
+ * followed by keys at increasing distances from it, where the gap between consecutive keys of the group is 1 plus
+ * a number below the spread derived from a hash of the primary key. A spread of 0 makes groups of consecutive keys,
+ * the closest locality, and a larger spread scatters the group over more of the key space. Keys past the largest
+ * key wrap around to the smallest one.
+ *
+ * The generator has no state besides its configuration and can be shared by threads.
+ */
+public class KeyGroupGenerator {
+  private final long min;
+  private final int size;
+  private final long spread;
+
+  /**
+   * @param min    The smallest key.
+   * @param size   The number of keys in a group, including the primary key.
+   * @param spread The bound of the random part of the gaps between the keys of a group, 0 for consecutive keys.
+   */
+  public KeyGroupGenerator(long min, int size, long spread) {
+    if (size < 1) {
+      throw new IllegalArgumentException("The group size must be at least 1: " + size);
+    }
+    if (spread < 0) {
+      throw new IllegalArgumentException("The spread must not be negative: " + spread);
+    }
+    this.min = min;
+    this.size = size;
+    this.spread = spread;
+  }
+
+  /**
+   * @return The number of keys in a group.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Derive the group of a primary key.
+   *
+   * @param primary The primary key.
+   * @param max     The largest key that exists, after which keys wrap around to the smallest key.
+   * @return The keys of the group, starting with the primary key. The keys are distinct unless the group spans
+   * more keys than there are.
+   */
+  public long[] group(long primary, long max) {
+    long[] keys = new long[size];
+    keys[0] = primary;
+    long items = max - min + 1;
+    long offset = 0;
+    long hash = primary;
+    for (int i = 1; i < size; i++) {
+      offset++;
+      if (spread > 0) {
+        hash = Utils.fnvhash64(hash);
+        offset += Math.floorMod(hash, spread);
+      }
+      keys[i] = min + Math.floorMod(primary - min + offset, items);
+    }
+    return keys;
+  }
+}
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import site.ycsb.Utils;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Moves the hot set of another generator over time. The values of the wrapped generator, between min and max, are
+ * rotated by an offset that depends on the time since this generator was created, wrapping around at max, so that
+ * e.g. the most popular item of a {@link ZipfianGenerator} or the hot set of a {@link HotspotIntegerGenerator} lands
+ * on different items as the run goes on.
+ *
+ * The offset either slides steadily by a fraction of the items per interval, or jumps to a pseudo-random position
+ * at the start of each interval. It is computed from the clock on every call, so there is no shared state to update
+ * and threads don't coordinate.
+ */
+public class MovingKeyGenerator extends NumberGenerator {
+  /**
+   * How the hot set moves.
+   */
+  public enum Movement {
+    /** Slide steadily by a fraction of the items per interval. */
+    SLIDE,
+    /** Jump to a pseudo-random position at the start of each interval. */
+    JUMP
+  }
+
+  private final NumberGenerator generator;
+  private final long min;
+  private final long items;
+  private final Movement movement;
+  private final long intervalNanos;
+  /** The number of items to slide per interval. */
+  private final double step;
+  private final LongSupplier clock;
+  private final long start;
+
+  /**
+   * Create a generator that moves the values of another one.
+   *
+   * @param generator     The generator to move, with values between min and max.
+   * @param min           The smallest value of the generator.
+   * @param max           The largest value of the generator.
+   * @param movement      How to move the values.
+   * @param intervalNanos The interval of the movement in nanoseconds.
+   * @param fraction      For {@link Movement#SLIDE}, the fraction of the items to slide per interval.
+   */
+  public MovingKeyGenerator(NumberGenerator generator, long min, long max, Movement movement, long intervalNanos,
+                            double fraction) {
+    this(generator, min, max, movement, intervalNanos, fraction, System::nanoTime);
+  }
+
+  MovingKeyGenerator(NumberGenerator generator, long min, long max, Movement movement, long intervalNanos,
+                     double fraction, LongSupplier clock) {
+    if (intervalNanos <= 0) {
+      throw new IllegalArgumentException("The interval must be positive: " + intervalNanos);
+    }
+    this.generator = generator;
+    this.min = min;
+    this.items = max - min + 1;
+    this.movement = movement;
+    this.intervalNanos = intervalNanos;
+    this.step = fraction * items;
+    this.clock = clock;
+    this.start = clock.getAsLong();
+  }
+
+  /**
+   * @return The offset the values are currently rotated by, from 0 to the number of items - 1.
+   */
+  long offset() {
+    long elapsed = clock.getAsLong() - start;
+    if (movement == Movement.SLIDE) {
+      double slid = (double) elapsed / intervalNanos * step;
+      return (long) (slid % items);
+    }
+    long interval = elapsed / intervalNanos;
+    return interval == 0 ? 0 : Utils.fnvhash64(interval) % items;
+  }
+
+  @Override
+  public Long nextValue() {
+    long value = generator.nextValue().longValue() - min;
+    long moved = min + Math.floorMod(value + offset(), items);
+    setLastValue(moved);
+    return moved;
+  }
+
+  /**
+   * Rotating the values around the range doesn't preserve the mean of the wrapped generator.
+   */
+  @Override
+  public double mean() {
+    throw new UnsupportedOperationException("Can't compute the mean of a moving distribution.");
+  }
+}
@@ -74,8 +74,8 @@ zipfian constant
 */
 
   /**
-   * Create a zipfian generator for items between min and max (inclusive) for the specified zipfian constant. If you
-   * use a zipfian constant other than 0.99, this will take a long time to complete because we need to recompute zeta.
+   * Create a zipfian generator for items between min and max (inclusive) for the specified zipfian constant. For
+   * the default constant of 0.99 the precomputed ZETAN is used, other constants approximate zeta on construction.
    *
    * @param min             The smallest integer to generate in the sequence.
    * @param max             The largest integer to generate in the sequence.
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import site.ycsb.Utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Converts a text trace to a {@link BinaryTrace}.
+ *
+ * Each line of the text trace is one operation, with fields separated by whitespace or commas:
+ * <pre>
+ * operation key [valuesize [timestamp]]
+ * </pre>
+ * The operation is one of READ, UPDATE, INSERT, SCAN, READMODIFYWRITE or DELETE, and for a scan the value size is the
+ * scan length. Timestamps are in microseconds; if the first operation has one, all of them must. A line with just a
+ * key, as in the trace files of the RestWorkload, is an operation of the default type. Keys that are numbers,
+ * optionally prefixed with "user" as those of the CoreWorkload, keep their number as key id; other keys are hashed.
+ * Empty lines and lines starting with '#' are skipped.
+ */
+public final class TraceConverter {
+  private TraceConverter() {
+    // not used
+  }
+
+  /**
+   * Convert a text trace.
+   *
+   * @param text             The text trace.
+   * @param binary           The binary trace to create or overwrite.
+   * @param defaultOperation The operation of lines with just a key, e.g. {@link BinaryTrace#READ}.
+   * @param defaultValueSize The value size of lines without one.
+   * @return The number of records written.
+   * @throws IOException if a file can't be read or written, or a line is malformed.
+   */
+  public static long convert(Path text, Path binary, byte defaultOperation, int defaultValueSize)
+      throws IOException {
+    BinaryTrace.Writer writer = null;
+    long count = 0;
+    try (BufferedReader reader = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+      String line;
+      int lineno = 0;
+      while ((line = reader.readLine()) != null) {
+        lineno++;
+        line = line.trim();
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split("[\\s,]+");
+        if (fields.length > 4) {
+          throw new IOException("Line " + lineno + ": expected at most 4 fields: " + line);
+        }
+        byte operation = defaultOperation;
+        String key = fields[0];
+        int valueSize = defaultValueSize;
+        long timestamp = 0;
+        if (fields.length > 1) {
+          operation = BinaryTrace.operationCode(fields[0]);
+          if (operation < 0) {
+            throw new IOException("Line " + lineno + ": unknown operation " + fields[0]);
+          }
+          key = fields[1];
+        }
+        try {
+          if (fields.length > 2) {
+            valueSize = Integer.parseInt(fields[2]);
+          }
+          if (fields.length > 3) {
+            timestamp = Long.parseLong(fields[3]);
+          }
+        } catch (NumberFormatException e) {
+          throw new IOException("Line " + lineno + ": malformed number: " + line, e);
+        }
+        if (writer == null) {
+          writer = new BinaryTrace.Writer(binary, fields.length > 3);
+        } else if (writer.hasTimestamps() != fields.length > 3) {
+          throw new IOException("Line " + lineno + ": either all or no operations must have a timestamp");
+        }
+        writer.write(operation, keyId(key), valueSize, timestamp);
+        count++;
+      }
+      if (writer == null) {
+        writer = new BinaryTrace.Writer(binary, false);
+      }
+    } finally {
+      if (writer != null) {
+        writer.close();
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @param key A key of a text trace.
+   * @return The number of a key such as "user123" or "123", otherwise a hash of the key.
+   */
+  static long keyId(String key) {
+    int start = key.startsWith("user") ? 4 : 0;
+    if (start < key.length() && key.length() - start <= 18) {
+      boolean digits = true;
+      for (int i = start; i < key.length() && digits; i++) {
+        digits = Character.isDigit(key.charAt(i)) && key.charAt(i) < 128;
+      }
+      if (digits) {
+        return Long.parseLong(key.substring(start));
+      }
+    }
+    return Utils.fnvhash64(key);
+  }
+
+  private static void usage() {
+    System.err.println("Usage: java " + TraceConverter.class.getName()
+        + " <text trace> <binary trace> [default operation [default value size]]");
+    System.err.println("Lines of the text trace are \"operation key [valuesize [timestamp in us]]\", or just \"key\"");
+    System.err.println("for an operation of the default type, READ unless given. The default value size is 0.");
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 4) {
+      usage();
+      System.exit(1);
+    }
+    byte operation = BinaryTrace.READ;
+    if (args.length > 2) {
+      operation = BinaryTrace.operationCode(args[2]);
+      if (operation < 0) {
+        System.err.println("Unknown operation " + args[2]);
+        usage();
+        System.exit(1);
+      }
+    }
+    int valueSize = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+    long count = convert(Paths.get(args[0]), Paths.get(args[1]), operation, valueSize);
+    System.out.println("Wrote " + count + " operations to " + args[1]);
+  }
+}
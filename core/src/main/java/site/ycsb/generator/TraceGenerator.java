@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+/**
+ * A generator of the indexes of the records of a {@link BinaryTrace} that belong to one of several threads replaying
+ * it. Thread t of n gets the records t, t + n, t + 2n, and so on, so the threads share the work without
+ * coordinating and together stay close to the order of the trace.
+ *
+ * Each thread needs its own instance, which must not be shared.
+ */
+public class TraceGenerator extends Generator<Long> {
+  private final BinaryTrace trace;
+  private final int stride;
+  private long next;
+  private long last = -1;
+
+  /**
+   * @param trace   The trace to replay.
+   * @param thread  The number of this thread, from 0 to threads - 1.
+   * @param threads The number of threads replaying the trace.
+   */
+  public TraceGenerator(BinaryTrace trace, int thread, int threads) {
+    if (thread < 0 || thread >= threads) {
+      throw new IllegalArgumentException("Thread " + thread + " out of range for " + threads + " threads");
+    }
+    this.trace = trace;
+    this.stride = threads;
+    this.next = thread;
+  }
+
+  /**
+   * @return The trace the indexes belong to.
+   */
+  public BinaryTrace getTrace() {
+    return trace;
+  }
+
+  /**
+   * @return The index of the next record of this thread, or -1 once the trace is exhausted.
+   */
+  public long nextIndex() {
+    if (next >= trace.size()) {
+      return -1;
+    }
+    last = next;
+    next += stride;
+    return last;
+  }
+
+  /**
+   * @return The index of the next record of this thread, or null once the trace is exhausted.
+   */
+  @Override
+  public Long nextValue() {
+    long index = nextIndex();
+    return index < 0 ? null : index;
+  }
+
+  @Override
+  public Long lastValue() {
+    return last < 0 ? null : last;
+  }
+}
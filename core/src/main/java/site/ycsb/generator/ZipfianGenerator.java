@@ -17,7 +17,9 @@
 
 package site.ycsb.generator;
 
-import java.util.concurrent.ThreadLocalRandom;
+import site.ycsb.RandomStreams;
+
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A generator of a zipfian distribution. It produces a sequence of items, such that some items are more popular than
@@ -30,18 +32,23 @@ import java.util.concurrent.ThreadLocalRandom;
  * popular, and so on (or min is the most popular, min+1 the next most popular, etc.) If you don't want this clustering,
  * and instead want the popular items scattered throughout the item space, then use ScrambledZipfianGenerator instead.
  *
- * Be aware: initializing this generator may take a long time if there are lots of items to choose from (e.g. over a
- * minute for 100 million objects). This is because certain mathematical values need to be computed to properly
- * generate a zipfian skew, and one of those values (zeta) is a sum sequence from 1 to n, where n is the itemcount.
- * Note that if you increase the number of items in the set, we can compute a new zeta incrementally, so it should be
- * fast unless you have added millions of items. However, if you decrease the number of items, we recompute zeta from
- * scratch, so this can take a long time.
+ * Certain mathematical values need to be computed to properly generate a zipfian skew, and one of those values (zeta)
+ * is a sum sequence from 1 to n, where n is the itemcount. The first terms of the sum are added up exactly and the
+ * rest is approximated with the Euler-Maclaurin formula, whose error is far below the precision of a double, so
+ * initializing this generator is fast even for billions of items. If the number of items changes, zeta is updated
+ * incrementally and without locking, by adding the terms of new items or subtracting those of items that went away,
+ * so the cost of a change is bounded by the number of items added or removed.
  *
  * The algorithm used here is from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994.
  */
 public class ZipfianGenerator extends NumberGenerator {
   public static final double ZIPFIAN_CONSTANT = 0.99;
 
+  /**
+   * Below this many items, zeta is summed exactly.
+   */
+  static final long EXACT_TERMS = 1000;
+
   /**
    * Number of items.
    */
@@ -60,26 +67,39 @@ public class ZipfianGenerator extends NumberGenerator {
   /**
    * Computed parameters for generating the distribution.
    */
-  private double alpha, zetan, eta, theta, zeta2theta;
+  private final double alpha, theta, zeta2theta;
 
   /**
-   * The number of items used to compute zetan the last time.
+   * The parameters of the distribution that depend on the item count. They are replaced as a whole when the item
+   * count changes, so that readers always see a consistent set.
    */
-  private long countforzeta;
+  private static final class ZetaState {
+    /** The number of items used to compute zetan. */
+    private final long countforzeta;
+    private final double zetan;
+    private final double eta;
+
+    private ZetaState(long countforzeta, double zetan, double eta) {
+      this.countforzeta = countforzeta;
+      this.zetan = zetan;
+      this.eta = eta;
+    }
+  }
+
+  private final AtomicReference<ZetaState> state;
 
   /**
    * Flag to prevent problems. If you increase the number of items the zipfian generator is allowed to choose from,
-   * this code will incrementally compute a new zeta value for the larger itemcount. However, if you decrease the
-   * number of items, the code computes zeta from scratch; this is expensive for large itemsets.
-   * Usually this is not intentional; e.g. one thread thinks the number of items is 1001 and calls "nextLong()" with
-   * that item count; then another thread who thinks the number of items is 1000 calls nextLong() with itemcount=1000
-   * triggering the expensive recomputation. (It is expensive for 100 million items, not really for 1000 items.) Why
-   * did the second thread think there were only 1000 items? maybe it read the item count before the first thread
-   * incremented it. So this flag allows you to say if you really do want that recomputation. If true, then the code
-   * will recompute zeta if the itemcount goes down. If false, the code will assume itemcount only goes up, and never
-   * recompute.
+   * this code will incrementally compute a new zeta value for the larger itemcount, and if allowed, it does the same
+   * when you decrease the number of items.
+   * Usually a decrease is not intentional; e.g. one thread thinks the number of items is 1001 and calls "nextLong()"
+   * with that item count; then another thread who thinks the number of items is 1000 calls nextLong() with
+   * itemcount=1000. Why did the second thread think there were only 1000 items? maybe it read the item count before
+   * the first thread incremented it. So this flag allows you to say if you really do want the item count to go down,
+   * e.g. because items are deleted. If true, then the code will update zeta if the itemcount goes down. If false, the
+   * code will assume itemcount only goes up, and keep the zeta of the largest itemcount seen.
    */
-  private boolean allowitemcountdecrease = false;
+  private volatile boolean allowitemcountdecrease = false;
 
   /******************************* Constructors **************************************/
 
@@ -137,12 +157,10 @@ public class ZipfianGenerator extends NumberGenerator {
 
     theta = this.zipfianconstant;
 
-    zeta2theta = zeta(2, theta);
-    
+    zeta2theta = zetastatic(2, theta);
+
     alpha = 1.0 / (1.0 - theta);
-    this.zetan = zetan;
-    countforzeta = items;
-    eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / this.zetan);
+    state = new AtomicReference<>(newState(items, zetan));
 
     nextValue();
   }
@@ -150,20 +168,17 @@ public class ZipfianGenerator extends NumberGenerator {
   /**************************************************************************/
 
   /**
-   * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-   * using the zipfian constant thetaVal. Remember the value of n, so if we change the itemcount, we can recompute zeta.
+   * Allow the number of items passed to {@link #nextLong(long)} to go down, e.g. when items are deleted.
    *
-   * @param n The number of items to compute zeta over.
-   * @param thetaVal The zipfian constant.
+   * @param allow If true, zeta follows the item count down as well as up.
    */
-  double zeta(long n, double thetaVal) {
-    countforzeta = n;
-    return zetastatic(n, thetaVal);
+  public void setAllowItemCountDecrease(boolean allow) {
+    allowitemcountdecrease = allow;
   }
 
   /**
    * Compute the zeta constant needed for the distribution. Do this from scratch for a distribution with n items,
-   * using the zipfian constant theta. This is a static version of the function which will not remember n.
+   * using the zipfian constant theta.
    * @param n The number of items to compute zeta over.
    * @param theta The zipfian constant.
    */
@@ -173,40 +188,61 @@ public class ZipfianGenerator extends NumberGenerator {
 
   /**
    * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
-   * has n items now but used to have st items. Use the zipfian constant thetaVal. Remember the new value of
-   * n so that if we change the itemcount, we'll know to recompute zeta.
+   * has n items now but used to have st items. Use the zipfian constant theta. If n is less than st, the terms of
+   * the items that went away are subtracted if there are fewer than EXACT_TERMS of them; otherwise zeta is computed
+   * from scratch, which costs no more and doesn't lose precision to the subtraction.
+   *
+   * The terms for the first EXACT_TERMS items, and any change of fewer than EXACT_TERMS items, are summed one by
+   * one. Longer runs of terms are approximated with {@link #eulerMaclaurin(long, long, double)}.
    *
-   * @param st The number of items used to compute the last initialsum
-   * @param n The number of items to compute zeta over.
-   * @param thetaVal The zipfian constant.
-   * @param initialsum The value of zeta we are computing incrementally from.
-   */
-  double zeta(long st, long n, double thetaVal, double initialsum) {
-    countforzeta = n;
-    return zetastatic(st, n, thetaVal, initialsum);
-  }
-
-  /**
-   * Compute the zeta constant needed for the distribution. Do this incrementally for a distribution that
-   * has n items now but used to have st items. Use the zipfian constant theta. Remember the new value of
-   * n so that if we change the itemcount, we'll know to recompute zeta.
    * @param st The number of items used to compute the last initialsum
    * @param n The number of items to compute zeta over.
    * @param theta The zipfian constant.
    * @param initialsum The value of zeta we are computing incrementally from.
    */
   static double zetastatic(long st, long n, double theta, double initialsum) {
+    if (n < st) {
+      return st - n < EXACT_TERMS ? initialsum - zetastatic(n, st, theta, 0) : zetastatic(n, theta);
+    }
     double sum = initialsum;
-    for (long i = st; i < n; i++) {
+    long exactend = n - st <= EXACT_TERMS ? n : Math.max(st, EXACT_TERMS);
+    for (long i = st; i < exactend; i++) {
 
       sum += 1 / (Math.pow(i + 1, theta));
     }
-
-    //System.out.println("countforzeta="+countforzeta);
+    if (exactend < n) {
+      sum += eulerMaclaurin(exactend + 1, n, theta);
+    }
 
     return sum;
   }
 
+  /**
+   * Approximate the sum of 1/k^theta for k from a to b (inclusive) with the Euler-Maclaurin formula, keeping the
+   * correction terms up to the third derivative. For a of at least EXACT_TERMS the truncation error is below 1e-17,
+   * less than the rounding error of adding up the terms one by one.
+   *
+   * @param a The first term of the sum.
+   * @param b The last term of the sum.
+   * @param theta The zipfian constant.
+   */
+  static double eulerMaclaurin(long a, long b, double theta) {
+    double fa = Math.pow(a, -theta);
+    double fb = Math.pow(b, -theta);
+    // integral of x^-theta from a to b, written so that it stays accurate as theta approaches 1
+    double lnratio = Math.log((double) b / a);
+    double integral = theta == 1.0 ? lnratio : a * fa * Math.expm1((1 - theta) * lnratio) / (1 - theta);
+    // f'(x) = -theta x^(-theta-1) and f'''(x) = -theta (theta+1) (theta+2) x^(-theta-3)
+    double d1 = -theta * (fb / b - fa / a);
+    double d3 = -theta * (theta + 1) * (theta + 2) * (fb / ((double) b * b * b) - fa / ((double) a * a * a));
+    return integral + (fa + fb) / 2 + d1 / 12 - d3 / 720;
+  }
+
+  private ZetaState newState(long countforzeta, double zetan) {
+    return new ZetaState(countforzeta, zetan,
+        (1 - Math.pow(2.0 / countforzeta, 1 - theta)) / (1 - zeta2theta / zetan));
+  }
+
   /****************************************************************************************/
 
 
@@ -216,38 +252,26 @@ public class ZipfianGenerator extends NumberGenerator {
    * @param itemcount The number of items in the distribution.
    * @return The next item in the sequence.
    */
-  long nextLong(long itemcount) {
+  public long nextLong(long itemcount) {
     //from "Quickly Generating Billion-Record Synthetic Databases", Jim Gray et al, SIGMOD 1994
 
-    if (itemcount != countforzeta) {
-
-      //have to recompute zetan and eta, since they depend on itemcount
-      synchronized (this) {
-        if (itemcount > countforzeta) {
-          //System.err.println("WARNING: Incrementally recomputing Zipfian distribtion. (itemcount="+itemcount+"
-          // countforzeta="+countforzeta+")");
-
-          //we have added more items. can compute zetan incrementally, which is cheaper
-          zetan = zeta(countforzeta, itemcount, theta, zetan);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-        } else if ((itemcount < countforzeta) && (allowitemcountdecrease)) {
-          //have to start over with zetan
-          //note : for large itemsets, this is very slow. so don't do it!
-
-          //TODO: can also have a negative incremental computation, e.g. if you decrease the number of items,
-          // then just subtract the zeta sequence terms for the items that went away. This would be faster than
-          // recomputing from scratch when the number of items decreases
-
-          System.err.println("WARNING: Recomputing Zipfian distribtion. This is slow and should be avoided. " +
-              "(itemcount=" + itemcount + " countforzeta=" + countforzeta + ")");
-
-          zetan = zeta(itemcount, theta);
-          eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2theta / zetan);
-        }
+    ZetaState current = state.get();
+    while (itemcount != current.countforzeta &&
+        (itemcount > current.countforzeta || allowitemcountdecrease)) {
+      //have to recompute zetan and eta, since they depend on itemcount. zetan is updated incrementally by adding
+      // the terms of the items that were added, or subtracting those of the items that went away
+      ZetaState updated = newState(itemcount, zetastatic(current.countforzeta, itemcount, theta, current.zetan));
+      // if another thread changed the item count in the meantime, start over from its state
+      if (state.compareAndSet(current, updated)) {
+        current = updated;
+      } else {
+        current = state.get();
       }
     }
 
-    double u = ThreadLocalRandom.current().nextDouble();
+    double zetan = current.zetan;
+    double eta = current.eta;
+    double u = RandomStreams.current().nextDouble();
     double uz = u * zetan;
 
     if (uz < 1.0) {
@@ -0,0 +1,92 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import site.ycsb.Status;
+
+/**
+ * A pre-resolved reference to one named measurement, obtained from {@link Measurements#getHandle}.
+ * Recording through a handle behaves like the corresponding methods of {@link Measurements}, but
+ * skips building the name and looking it up for every operation.
+ *
+ * The measurement is created on first use, so that measurements nothing was recorded into are not
+ * exported.
+ */
+public final class MeasurementHandle {
+  private final Measurements measurements;
+  private final String name;
+  private final int measurementInterval;
+  private volatile OneMeasurement opMeasurement;
+  private volatile OneMeasurement intendedMeasurement;
+
+  MeasurementHandle(Measurements measurements, String name) {
+    this.measurements = measurements;
+    this.name = name;
+    this.measurementInterval = measurements.getMeasurementInterval();
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Report a single latency value, see {@link Measurements#measure(String, int)}.
+   */
+  public void measure(int latency) {
+    if (measurementInterval == 1) {
+      return;
+    }
+    Measurements.measure(opMeasurement(), latency);
+  }
+
+  /**
+   * Report a single intended latency value, see {@link Measurements#measureIntended(String, int)}.
+   */
+  public void measureIntended(int latency) {
+    if (measurementInterval == 0) {
+      return;
+    }
+    Measurements.measure(intendedMeasurement(), latency);
+  }
+
+  /**
+   * Report a return code, see {@link Measurements#reportStatus(String, Status)}.
+   */
+  public void reportStatus(Status status) {
+    OneMeasurement m = measurementInterval == 1 ? intendedMeasurement() : opMeasurement();
+    m.reportStatus(status);
+  }
+
+  private OneMeasurement opMeasurement() {
+    OneMeasurement m = opMeasurement;
+    if (m == null) {
+      m = measurements.getOpMeasurement(name);
+      opMeasurement = m;
+    }
+    return m;
+  }
+
+  private OneMeasurement intendedMeasurement() {
+    OneMeasurement m = intendedMeasurement;
+    if (m == null) {
+      m = measurements.getOpIntendedMeasurement(name);
+      intendedMeasurement = m;
+    }
+    return m;
+  }
+}
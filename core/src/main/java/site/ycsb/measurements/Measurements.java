@@ -18,9 +18,15 @@
 package site.ycsb.measurements;
 
 import site.ycsb.Status;
+import site.ycsb.StatusThread;
 import site.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentHashMap;
 
@@ -34,6 +40,7 @@ public class Measurements {
   public enum MeasurementType {
     HISTOGRAM,
     HDRHISTOGRAM,
+    HDRHISTOGRAM_PERTHREAD,
     HDRHISTOGRAM_AND_HISTOGRAM,
     HDRHISTOGRAM_AND_RAW,
     TIMESERIES,
@@ -69,8 +76,13 @@ public class Measurements {
   private final ConcurrentHashMap<String, OneMeasurement> opToMesurementMap;
   private final ConcurrentHashMap<String, OneMeasurement> opToIntendedMesurementMap;
   private final MeasurementType measurementType;
+  /**
+   * 0 to record the service time of operations ("op"), 1 for the time since their intended start
+   * ("intended"), 2 for both.
+   */
   private final int measurementInterval;
   private final Properties props;
+  private final List<Double> intervalPercentiles;
 
   /**
    * Create a new object with the specified properties.
@@ -89,6 +101,9 @@ public class Measurements {
     case "hdrhistogram":
       measurementType = MeasurementType.HDRHISTOGRAM;
       break;
+    case "hdrhistogram-perthread":
+      measurementType = MeasurementType.HDRHISTOGRAM_PERTHREAD;
+      break;
     case "hdrhistogram+histogram":
       measurementType = MeasurementType.HDRHISTOGRAM_AND_HISTOGRAM;
       break;
@@ -119,6 +134,9 @@ public class Measurements {
     default:
       throw new IllegalArgumentException("unknown " + MEASUREMENT_INTERVAL + "=" + mIntervalString);
     }
+
+    intervalPercentiles = OneMeasurementHdrHistogram.getPercentileValues(this.props.getProperty(
+        OneMeasurementHdrHistogram.PERCENTILES_PROPERTY, OneMeasurementHdrHistogram.PERCENTILES_PROPERTY_DEFAULT));
   }
 
   private OneMeasurement constructOneMeasurement(String name) {
@@ -127,6 +145,8 @@ public class Measurements {
       return new OneMeasurementHistogram(name, props);
     case HDRHISTOGRAM:
       return new OneMeasurementHdrHistogram(name, props);
+    case HDRHISTOGRAM_PERTHREAD:
+      return new OneMeasurementHdrHistogram(name, props, true);
     case HDRHISTOGRAM_AND_HISTOGRAM:
       return new TwoInOneMeasurement(name,
           new OneMeasurementHdrHistogram("Hdr" + name, props),
@@ -144,10 +164,16 @@ public class Measurements {
     }
   }
 
-  static class StartTimeHolder {
+  /**
+   * Holds the intended start time of the current operation of one thread.
+   */
+  public static class StartTimeHolder {
     protected long time;
 
-    long startTime() {
+    /**
+     * @return The intended start time in {@link System#nanoTime()} units, or now if there is none.
+     */
+    public long startTime() {
       if (time == 0) {
         return System.nanoTime();
       } else {
@@ -162,6 +188,10 @@ public class Measurements {
     }
   };
 
+  int getMeasurementInterval() {
+    return measurementInterval;
+  }
+
   public void setIntendedStartTimeNs(long time) {
     if (measurementInterval == 0) {
       return;
@@ -176,6 +206,30 @@ public class Measurements {
     return tlIntendedStartTime.get().startTime();
   }
 
+  /**
+   * Return the holder of the intended start time of the calling thread, so that callers which look
+   * the time up for every operation from the same thread can skip the thread local.
+   *
+   * @return The holder, or null if intended latencies are not measured.
+   */
+  public StartTimeHolder getIntendedStartTimeHolder() {
+    if (measurementInterval == 0) {
+      return null;
+    }
+    return tlIntendedStartTime.get();
+  }
+
+  /**
+   * Return a handle that records into the measurement with the given name without looking it up
+   * again on every call. Handles to the same name share the same measurement.
+   *
+   * @param operation The name of the measurement, e.g. "READ" or "READ-FAILED".
+   * @return The handle.
+   */
+  public MeasurementHandle getHandle(String operation) {
+    return new MeasurementHandle(this, operation);
+  }
+
   /**
    * Report a single value of a single metric. E.g. for read latency, operation="READ" and latency is the measured
    * value.
@@ -184,15 +238,7 @@ public class Measurements {
     if (measurementInterval == 1) {
       return;
     }
-    try {
-      OneMeasurement m = getOpMeasurement(operation);
-      m.measure(latency);
-    } catch (java.lang.ArrayIndexOutOfBoundsException e) {
-      // This seems like a terribly hacky way to cover up for a bug in the measurement code
-      System.out.println("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing");
-      e.printStackTrace();
-      e.printStackTrace(System.out);
-    }
+    measure(getOpMeasurement(operation), latency);
   }
 
   /**
@@ -203,8 +249,11 @@ public class Measurements {
     if (measurementInterval == 0) {
       return;
     }
+    measure(getOpIntendedMeasurement(operation), latency);
+  }
+
+  static void measure(OneMeasurement m, int latency) {
     try {
-      OneMeasurement m = getOpIntendedMeasurement(operation);
       m.measure(latency);
     } catch (java.lang.ArrayIndexOutOfBoundsException e) {
       // This seems like a terribly hacky way to cover up for a bug in the measurement code
@@ -214,27 +263,20 @@ public class Measurements {
     }
   }
 
-  private OneMeasurement getOpMeasurement(String operation) {
+  OneMeasurement getOpMeasurement(String operation) {
     OneMeasurement m = opToMesurementMap.get(operation);
     if (m == null) {
-      m = constructOneMeasurement(operation);
-      OneMeasurement oldM = opToMesurementMap.putIfAbsent(operation, m);
-      if (oldM != null) {
-        m = oldM;
-      }
+      // constructs only one measurement per operation, as some open files or start threads
+      m = opToMesurementMap.computeIfAbsent(operation, this::constructOneMeasurement);
     }
     return m;
   }
 
-  private OneMeasurement getOpIntendedMeasurement(String operation) {
+  OneMeasurement getOpIntendedMeasurement(String operation) {
     OneMeasurement m = opToIntendedMesurementMap.get(operation);
     if (m == null) {
-      final String name = measurementInterval == 1 ? operation : "Intended-" + operation;
-      m = constructOneMeasurement(name);
-      OneMeasurement oldM = opToIntendedMesurementMap.putIfAbsent(operation, m);
-      if (oldM != null) {
-        m = oldM;
-      }
+      m = opToIntendedMesurementMap.computeIfAbsent(operation,
+          op -> constructOneMeasurement(measurementInterval == 1 ? op : "Intended-" + op));
     }
     return m;
   }
@@ -264,6 +306,64 @@ public class Measurements {
     }
   }
 
+  /**
+   * Export the measurements of the interval that ended with the last {@link #getSummary()}, for the measurements
+   * that keep a histogram of their intervals, leaving out those of the JVM. The percentiles are those of the end of
+   * the run.
+   *
+   * @param exporter Exporter representing the type of format to write to.
+   * @param start    The start of the interval, in milliseconds since the epoch.
+   * @param end      The end of the interval, in milliseconds since the epoch.
+   * @throws IOException Thrown if the export failed.
+   */
+  public void exportIntervals(MeasurementsExporter exporter, long start, long end) throws IOException {
+    for (OneMeasurement measurement : getAllMeasurements()) {
+      Histogram interval = measurement.getLastInterval();
+      if (interval == null || StatusThread.JVM_MEASUREMENTS.contains(measurement.getName())) {
+        continue;
+      }
+      Map<String, Number> values = intervalValues(interval, start, end, intervalPercentiles);
+      exporter.writeInterval(measurement.getName(), start, end, values);
+    }
+  }
+
+  /**
+   * Summarize the latencies of an interval the way intervals are exported.
+   *
+   * @param interval    The latencies of the interval.
+   * @param start       The start of the interval, in milliseconds.
+   * @param end         The end of the interval, in milliseconds.
+   * @param percentiles The percentiles to include.
+   * @return The measurements of the interval by name, in order.
+   */
+  public static Map<String, Number> intervalValues(Histogram interval, long start, long end,
+                                                   List<Double> percentiles) {
+    Map<String, Number> values = new LinkedHashMap<>();
+    long count = interval.getTotalCount();
+    values.put("Operations", count);
+    values.put("Throughput(ops/sec)", 1000.0 * count / (end - start));
+    if (count > 0) {
+      values.put("AverageLatency(us)", interval.getMean());
+      values.put("MinLatency(us)", interval.getMinValue());
+      values.put("MaxLatency(us)", interval.getMaxValue());
+      for (Double percentile : percentiles) {
+        values.put(OneMeasurementHdrHistogram.ordinal(percentile) + "PercentileLatency(us)",
+            interval.getValueAtPercentile(percentile));
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Return the measurements of all operations measured so far. This doesn't wait for a summary or export in
+   * progress, nor for threads measuring.
+   */
+  public List<OneMeasurement> getAllMeasurements() {
+    List<OneMeasurement> all = new ArrayList<>(opToMesurementMap.values());
+    all.addAll(opToIntendedMesurementMap.values());
+    return all;
+  }
+
   /**
    * Return a one line summary of the measurements.
    */
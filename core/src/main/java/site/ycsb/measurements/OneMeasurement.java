@@ -20,7 +20,10 @@ package site.ycsb.measurements;
 import site.ycsb.Status;
 import site.ycsb.measurements.exporter.MeasurementsExporter;
 
+import org.HdrHistogram.Histogram;
+
 import java.io.IOException;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -30,8 +33,34 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 public abstract class OneMeasurement {
 
+  /**
+   * The number of operations and the average latency of an interval.
+   */
+  public static final class IntervalSummary {
+    private final long operations;
+    private final double averageLatency;
+
+    public IntervalSummary(long operations, double averageLatency) {
+      this.operations = operations;
+      this.averageLatency = averageLatency;
+    }
+
+    public long getOperations() {
+      return operations;
+    }
+
+    /**
+     * @return The average latency in microseconds, 0 without operations.
+     */
+    public double getAverageLatency() {
+      return averageLatency;
+    }
+  }
+
   private final String name;
   private final ConcurrentHashMap<Status, AtomicInteger> returncodes;
+  private volatile Histogram lastInterval;
+  private volatile IntervalSummary lastIntervalSummary;
 
   public String getName() {
     return name;
@@ -49,6 +78,42 @@ public abstract class OneMeasurement {
 
   public abstract String getSummary();
 
+  /**
+   * @return The latencies measured in the interval that ended with the last {@link #getSummary()}, or null if
+   * there was no summary yet or this kind of measurement keeps no histogram. The histogram must not be modified.
+   */
+  public Histogram getLastInterval() {
+    return lastInterval;
+  }
+
+  /**
+   * Publishes the histogram of an interval that just ended, which must not be modified afterwards.
+   */
+  protected final void setLastInterval(Histogram interval) {
+    lastInterval = interval;
+  }
+
+  /**
+   * @return The operations and average latency of the interval that ended with the last {@link #getSummary()},
+   * also for the kinds of measurement that keep no histogram, or null if there was no summary yet.
+   */
+  public IntervalSummary getLastIntervalSummary() {
+    Histogram interval = lastInterval;
+    if (interval != null) {
+      long operations = interval.getTotalCount();
+      return new IntervalSummary(operations, operations == 0 ? 0 : interval.getMean());
+    }
+    return lastIntervalSummary;
+  }
+
+  /**
+   * Publishes the operations and the total latency of an interval that just ended, for the kinds of measurement
+   * that keep no histogram.
+   */
+  protected final void setLastIntervalSummary(long operations, long totalLatency) {
+    lastIntervalSummary = new IntervalSummary(operations, operations == 0 ? 0 : (double) totalLatency / operations);
+  }
+
   /**
    * No need for synchronization, using CHM to deal with that.
    */
@@ -74,6 +139,17 @@ public abstract class OneMeasurement {
    */
   public abstract void exportMeasurements(MeasurementsExporter exporter) throws IOException;
 
+  /**
+   * @return The number of operations with each return code so far.
+   */
+  public Map<Status, Integer> getStatusCounts() {
+    Map<Status, Integer> counts = new HashMap<>();
+    for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
+      counts.put(entry.getKey(), entry.getValue().get());
+    }
+    return counts;
+  }
+
   protected final void exportStatusCounts(MeasurementsExporter exporter) throws IOException {
     for (Map.Entry<Status, AtomicInteger> entry : returncodes.entrySet()) {
       exporter.write(getName(), "Return=" + entry.getKey().getName(), entry.getValue().get());
@@ -22,6 +22,7 @@ import org.HdrHistogram.Histogram;
 import org.HdrHistogram.HistogramIterationValue;
 import org.HdrHistogram.HistogramLogWriter;
 import org.HdrHistogram.Recorder;
+import org.HdrHistogram.SingleWriterRecorder;
 
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -29,12 +30,19 @@ import java.io.IOException;
 import java.io.PrintStream;
 import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 /**
  * Take measurements and maintain a HdrHistogram of a given metric, such as READ LATENCY.
  *
+ * By default all threads record into one shared {@link Recorder}. In per-thread mode each recording
+ * thread gets its own {@link SingleWriterRecorder}, so that threads never contend on the same
+ * counts, and the recorders are merged only when a summary or the final export is requested. The recorder
+ * of a thread that has ended is dropped once its last interval is merged.
  */
 public class OneMeasurementHdrHistogram extends OneMeasurement {
 
@@ -45,6 +53,21 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   private final Recorder histogram;
   private Histogram totalHistogram;
 
+  /**
+   * The recorder of each thread that measured, in per-thread mode; null otherwise.
+   */
+  private final ThreadLocal<SingleWriterRecorder> threadRecorder;
+  private final Queue<ThreadRecorder> threadRecorders = new ConcurrentLinkedQueue<>();
+
+  /**
+   * The recorder of one thread, with the interval histogram last taken from it to be reused.
+   */
+  private static final class ThreadRecorder {
+    private final Thread owner = Thread.currentThread();
+    private final SingleWriterRecorder recorder = new SingleWriterRecorder(3);
+    private Histogram interval;
+  }
+
   /**
    * The name of the property for deciding what percentile values to output.
    */
@@ -68,6 +91,15 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   private final List<Double> percentiles;
 
   public OneMeasurementHdrHistogram(String name, Properties props) {
+    this(name, props, false);
+  }
+
+  /**
+   * @param name      The name of the measurement.
+   * @param props     The properties of the run.
+   * @param perThread Whether each thread records into its own recorder.
+   */
+  public OneMeasurementHdrHistogram(String name, Properties props, boolean perThread) {
     super(name);
     percentiles = getPercentileValues(props.getProperty(PERCENTILES_PROPERTY, PERCENTILES_PROPERTY_DEFAULT));
     verbose = Boolean.valueOf(props.getProperty(VERBOSE_PROPERTY, String.valueOf(false)));
@@ -90,7 +122,20 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
       histogramLogWriter.setBaseTime(now);
       histogramLogWriter.outputLegend();
     }
-    histogram = new Recorder(3);
+    if (perThread) {
+      histogram = null;
+      threadRecorder = new ThreadLocal<SingleWriterRecorder>() {
+        @Override
+        protected SingleWriterRecorder initialValue() {
+          ThreadRecorder recorder = new ThreadRecorder();
+          threadRecorders.add(recorder);
+          return recorder.recorder;
+        }
+      };
+    } else {
+      histogram = new Recorder(3);
+      threadRecorder = null;
+    }
   }
 
   /**
@@ -98,7 +143,11 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    * Using {@link Recorder} to support concurrent updates to histogram.
    */
   public void measure(int latencyInMicros) {
-    histogram.recordValue(latencyInMicros);
+    if (histogram != null) {
+      histogram.recordValue(latencyInMicros);
+    } else {
+      threadRecorder.get().recordValue(latencyInMicros);
+    }
   }
 
   /**
@@ -165,23 +214,61 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
   }
 
   private Histogram getIntervalHistogramAndAccumulate() {
-    Histogram intervalHistogram = histogram.getIntervalHistogram();
+    Histogram intervalHistogram = histogram != null ? histogram.getIntervalHistogram() : mergeThreadRecorders();
     // add this to the total time histogram.
     if (totalHistogram == null) {
-      totalHistogram = intervalHistogram;
+      totalHistogram = intervalHistogram.copy();
     } else {
       totalHistogram.add(intervalHistogram);
     }
+    setLastInterval(intervalHistogram);
     return intervalHistogram;
   }
 
+  /**
+   * Collects the interval histograms of all thread recorders into one, and drops the recorders of the threads
+   * that ended before their interval was taken.
+   */
+  private Histogram mergeThreadRecorders() {
+    Histogram merged = new Histogram(3);
+    long start = Long.MAX_VALUE;
+    long end = 0;
+    for (Iterator<ThreadRecorder> it = threadRecorders.iterator(); it.hasNext();) {
+      ThreadRecorder recorder = it.next();
+      // checked first, so that nothing is recorded after the last interval of an ended thread
+      boolean ended = !recorder.owner.isAlive();
+      Histogram interval = recorder.recorder.getIntervalHistogram(recorder.interval);
+      recorder.interval = interval;
+      merged.add(interval);
+      start = Math.min(start, interval.getStartTimeStamp());
+      end = Math.max(end, interval.getEndTimeStamp());
+      if (ended) {
+        it.remove();
+      }
+    }
+    if (end == 0) {
+      start = System.currentTimeMillis();
+      end = start;
+    }
+    merged.setStartTimeStamp(start);
+    merged.setEndTimeStamp(end);
+    return merged;
+  }
+
+  /**
+   * @return The number of thread recorders kept, in per-thread mode.
+   */
+  int getThreadRecorderCount() {
+    return threadRecorders.size();
+  }
+
   /**
    * Helper method to parse the given percentile value string.
    *
    * @param percentileString - comma delimited string of Integer values
    * @return An Integer List of percentile values
    */
-  private List<Double> getPercentileValues(String percentileString) {
+  public static List<Double> getPercentileValues(String percentileString) {
     List<Double> percentileValues = new ArrayList<>();
 
     try {
@@ -205,7 +292,7 @@ public class OneMeasurementHdrHistogram extends OneMeasurement {
    * @param i number
    * @return ordinal string
    */
-  private String ordinal(Double i) {
+  public static String ordinal(Double i) {
     String[] suffixes = new String[]{"th", "st", "nd", "rd", "th", "th", "th", "th", "th", "th"};
     Integer j = i.intValue();
     if (i % 1 == 0) {
@@ -22,10 +22,15 @@ import site.ycsb.measurements.exporter.MeasurementsExporter;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.Properties;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Take measurements and maintain a histogram of a given metric, such as READ LATENCY.
  *
+ * The counters are striped {@link LongAdder}s and the extremes {@link LongAccumulator}s, so threads
+ * measuring the same metric don't serialize on a lock.
  */
 public class OneMeasurementHistogram extends OneMeasurement {
   public static final String BUCKETS = "histogram.buckets";
@@ -40,30 +45,30 @@ public class OneMeasurementHistogram extends OneMeasurement {
   /**
    * Groups operations in discrete blocks of 1ms width.
    */
-  private long[] histogram;
+  private final LongAdder[] histogram;
 
   /**
    * Counts all operations outside the histogram's range.
    */
-  private long histogramoverflow;
+  private final LongAdder histogramoverflow = new LongAdder();
 
   /**
    * The total number of reported operations.
    */
-  private long operations;
+  private final LongAdder operations = new LongAdder();
 
   /**
    * The sum of each latency measurement over all operations.
    * Calculated in ms.
    */
-  private long totallatency;
+  private final LongAdder totallatency = new LongAdder();
 
   /**
    * The sum of each latency measurement squared over all operations. 
    * Used to calculate variance of latency.
    * Calculated in ms. 
    */
-  private double totalsquaredlatency;
+  private final DoubleAdder totalsquaredlatency = new DoubleAdder();
 
   /**
    * Whether or not to emit the histogram buckets.
@@ -71,71 +76,62 @@ public class OneMeasurementHistogram extends OneMeasurement {
   private final boolean verbose;
   
   //keep a windowed version of these stats for printing status
-  private long windowoperations;
-  private long windowtotallatency;
+  private final LongAdder windowoperations = new LongAdder();
+  private final LongAdder windowtotallatency = new LongAdder();
 
-  private int min;
-  private int max;
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
 
   public OneMeasurementHistogram(String name, Properties props) {
     super(name);
     buckets = Integer.parseInt(props.getProperty(BUCKETS, BUCKETS_DEFAULT));
     verbose = Boolean.valueOf(props.getProperty(VERBOSE_PROPERTY, String.valueOf(false)));
-    histogram = new long[buckets];
-    histogramoverflow = 0;
-    operations = 0;
-    totallatency = 0;
-    totalsquaredlatency = 0;
-    windowoperations = 0;
-    windowtotallatency = 0;
-    min = -1;
-    max = -1;
+    histogram = new LongAdder[buckets];
+    for (int i = 0; i < buckets; i++) {
+      histogram[i] = new LongAdder();
+    }
   }
 
   /* (non-Javadoc)
    * @see site.ycsb.OneMeasurement#measure(int)
    */
-  public synchronized void measure(int latency) {
+  public void measure(int latency) {
     //latency reported in us and collected in bucket by ms.
     if (latency / 1000 >= buckets) {
-      histogramoverflow++;
+      histogramoverflow.increment();
     } else {
-      histogram[latency / 1000]++;
-    }
-    operations++;
-    totallatency += latency;
-    totalsquaredlatency += ((double) latency) * ((double) latency);
-    windowoperations++;
-    windowtotallatency += latency;
-
-    if ((min < 0) || (latency < min)) {
-      min = latency;
-    }
-
-    if ((max < 0) || (latency > max)) {
-      max = latency;
+      histogram[latency / 1000].increment();
     }
+    operations.increment();
+    totallatency.add(latency);
+    totalsquaredlatency.add(((double) latency) * ((double) latency));
+    windowoperations.increment();
+    windowtotallatency.add(latency);
+
+    min.accumulate(latency);
+    max.accumulate(latency);
   }
 
   @Override
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    double mean = totallatency / ((double) operations);
-    double variance = totalsquaredlatency / ((double) operations) - (mean * mean);
-    exporter.write(getName(), "Operations", operations);
+    long ops = operations.sum();
+    double mean = totallatency.sum() / ((double) ops);
+    double variance = totalsquaredlatency.sum() / ((double) ops) - (mean * mean);
+    exporter.write(getName(), "Operations", ops);
     exporter.write(getName(), "AverageLatency(us)", mean);
     exporter.write(getName(), "LatencyVariance(us)", variance);
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    exporter.write(getName(), "MinLatency(us)", ops == 0 ? -1 : (int) min.get());
+    exporter.write(getName(), "MaxLatency(us)", ops == 0 ? -1 : (int) max.get());
 
     long opcounter=0;
     boolean done95th = false;
     for (int i = 0; i < buckets; i++) {
-      opcounter += histogram[i];
-      if ((!done95th) && (((double) opcounter) / ((double) operations) >= 0.95)) {
+      opcounter += histogram[i].sum();
+      if ((!done95th) && (((double) opcounter) / ((double) ops) >= 0.95)) {
         exporter.write(getName(), "95thPercentileLatency(us)", i * 1000);
         done95th = true;
       }
-      if (((double) opcounter) / ((double) operations) >= 0.99) {
+      if (((double) opcounter) / ((double) ops) >= 0.99) {
         exporter.write(getName(), "99thPercentileLatency(us)", i * 1000);
         break;
       }
@@ -145,22 +141,25 @@ public class OneMeasurementHistogram extends OneMeasurement {
 
     if (verbose) {
       for (int i = 0; i < buckets; i++) {
-        exporter.write(getName(), Integer.toString(i), histogram[i]);
+        exporter.write(getName(), Integer.toString(i), histogram[i].sum());
       }
       
-      exporter.write(getName(), ">" + buckets, histogramoverflow);
+      exporter.write(getName(), ">" + buckets, histogramoverflow.sum());
     }
   }
 
   @Override
   public String getSummary() {
-    if (windowoperations == 0) {
+    // operations measured while the window is reset may count towards the next window's latency but
+    // this window's operations, or the other way round, which doesn't move the average noticeably
+    long ops = windowoperations.sumThenReset();
+    long total = windowtotallatency.sumThenReset();
+    setLastIntervalSummary(ops, total);
+    if (ops == 0) {
       return "";
     }
     DecimalFormat d = new DecimalFormat("#.##");
-    double report = ((double) windowtotallatency) / ((double) windowoperations);
-    windowtotallatency = 0;
-    windowoperations = 0;
+    double report = ((double) total) / ((double) ops);
     return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
   }
 }
@@ -18,57 +18,50 @@
 package site.ycsb.measurements;
 
 import site.ycsb.measurements.exporter.MeasurementsExporter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.LinkedList;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Record a series of measurements as raw data points without down sampling,
  * optionally write to an output file when configured.
  *
+ * Each recording thread writes its data points into its own ring buffer of
+ * primitive longs, and a background thread drains the buffers into a binary
+ * spill file, so the heap used doesn't grow with the length of the run. A
+ * buffer starts small and doubles while its thread outpaces the writer, up
+ * to the configured size; a thread whose buffer is full at that size waits
+ * for the writer to catch up, and the time waited is reported with the
+ * results. The buffer of a thread is released once the thread ended. At the end of
+ * the run the spill file is either written out as text, as before, or kept as
+ * is. Summary statistics are computed from an HdrHistogram of the same data
+ * points.
+ *
+ * The spill file starts with the time the measurement started, in
+ * milliseconds since the epoch, followed by one long per data point: the
+ * milliseconds since the start in the upper 32 bits and the latency in the
+ * lower 32 bits, all big-endian. Data points are in order for each thread,
+ * but the data points of different threads are interleaved in chunks.
  */
 public class OneMeasurementRaw extends OneMeasurement {
-  /**
-   * One raw data point, two fields: timestamp (ms) when the datapoint is
-   * inserted, and the value.
-   */
-  class RawDataPoint {
-    private final long timestamp;
-    private final int value;
-
-    public RawDataPoint(int value) {
-      this.timestamp = System.currentTimeMillis();
-      this.value = value;
-    }
-
-    public long timeStamp() {
-      return timestamp;
-    }
-
-    public int value() {
-      return value;
-    }
-  }
-
-  class RawDataPointComparator implements Comparator<RawDataPoint> {
-    @Override
-    public int compare(RawDataPoint p1, RawDataPoint p2) {
-      if (p1.value() < p2.value()) {
-        return -1;
-      } else if (p1.value() == p2.value()) {
-        return 0;
-      } else {
-        return 1;
-      }
-    }
-  }
-
   /**
    * Optionally, user can configure an output file to save the raw data points.
    * Default is none, raw results will be written to stdout.
@@ -77,42 +70,162 @@ public class OneMeasurementRaw extends OneMeasurement {
   public static final String OUTPUT_FILE_PATH = "measurement.raw.output_file";
   public static final String OUTPUT_FILE_PATH_DEFAULT = "";
 
+  /**
+   * Optionally, user can configure a directory to keep the binary spill files
+   * in, one per measurement, named after the measurement with a ".raw"
+   * extension. The data points are then not written out as text. Default is
+   * none, the spill files are temporary files.
+   */
+  public static final String BINARY_OUTPUT_DIR = "measurement.raw.binary_output_dir";
+  public static final String BINARY_OUTPUT_DIR_DEFAULT = "";
+
   /**
    * Optionally, user can request to not output summary stats. This is useful
    * if the user chains the raw measurement type behind the HdrHistogram type
-   * which already outputs summary stats. But even in that case, the user may
-   * still want this class to compute summary stats for them, especially if
-   * they want accurate computation of percentiles (because percentils computed
-   * by histogram classes are still approximations).
+   * which already outputs summary stats.
    */
   public static final String NO_SUMMARY_STATS = "measurement.raw.no_summary";
   public static final String NO_SUMMARY_STATS_DEFAULT = "false";
 
+  /**
+   * Optionally, user can configure the number of data points each thread can
+   * buffer at most, rounded up to a power of two. Each buffer takes 8 bytes
+   * per data point, for every thread recording into the measurement, but only
+   * grows to that size for threads that record faster than the writer drains.
+   */
+  public static final String BUFFER_SIZE = "measurement.raw.buffer_size";
+  public static final String BUFFER_SIZE_DEFAULT = "16384";
+
+  /**
+   * How long the writer sleeps when there was nothing to drain, and how long
+   * a thread with a full buffer waits before checking again.
+   */
+  private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  /**
+   * The number of data points a buffer starts with.
+   */
+  private static final int INITIAL_BUFFER_SIZE = 256;
+
+  private static final double[] PERCENTILES = {1, 5, 50, 90, 95, 99, 99.9, 99.99};
+
+  /**
+   * The data points of one thread, written by that thread and drained by the
+   * writer thread.
+   */
+  private final class RingBuffer {
+    private final Thread owner = Thread.currentThread();
+    /**
+     * Only replaced by the owner, with a larger copy holding every data point not drained yet.
+     */
+    private volatile long[] points = new long[Math.min(INITIAL_BUFFER_SIZE, bufferSize)];
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+
+    void add(long point) {
+      long next = written.get();
+      long[] current = points;
+      if (next - drained.get() == current.length) {
+        if (current.length < bufferSize) {
+          current = grow(current, next);
+        } else {
+          long waitStart = System.nanoTime();
+          while (next - drained.get() == current.length) {
+            if (failure != null) {
+              // the writer is gone; keep the run going without the data point
+              droppedPoints.increment();
+              return;
+            }
+            LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+          }
+          waitNanos.add(System.nanoTime() - waitStart);
+        }
+      }
+      current[(int) next & (current.length - 1)] = point;
+      written.lazySet(next + 1);
+    }
+
+    private long[] grow(long[] current, long next) {
+      long[] larger = new long[current.length << 1];
+      // the writer only reads below next, which is in both arrays once published
+      for (long i = drained.get(); i < next; i++) {
+        larger[(int) i & (larger.length - 1)] = current[(int) i & (current.length - 1)];
+      }
+      points = larger;
+      return larger;
+    }
+
+    /**
+     * @return Whether there was anything to drain.
+     */
+    boolean drainTo(ByteBuffer out) throws IOException {
+      long from = drained.get();
+      long to = written.get();
+      // read after written, so that the array holds all data points up to it
+      long[] current = points;
+      for (long i = from; i < to; i++) {
+        if (!out.hasRemaining()) {
+          flush(out);
+        }
+        out.putLong(current[(int) i & (current.length - 1)]);
+      }
+      drained.lazySet(to);
+      return to > from;
+    }
+  }
+
   private final PrintStream outputStream;
 
   private boolean noSummaryStats = false;
 
-  private LinkedList<RawDataPoint> measurements;
-  private long totalLatency = 0;
+  private final long startTime;
+  private final Path spillFile;
+  private final boolean keepSpillFile;
+  private final FileChannel spill;
+  private final ByteBuffer spillBuffer = ByteBuffer.allocate(1 << 16);
+
+  private final int bufferSize;
+  private final ThreadLocal<RingBuffer> threadBuffer;
+  private final List<RingBuffer> buffers = new CopyOnWriteArrayList<>();
+  private final Thread writer;
+  private volatile boolean running = true;
+  private volatile IOException failure;
+  private final LongAdder waitNanos = new LongAdder();
+  private final LongAdder droppedPoints = new LongAdder();
 
-  // A window of stats to print summary for at the next getSummary() call.
-  // It's supposed to be a one line summary, so we will just print count and
-  // average.
-  private int windowOperations = 0;
-  private long windowTotalLatency = 0;
+  private final Recorder histogram = new Recorder(3);
+  private final Histogram totalHistogram = new Histogram(3);
 
   public OneMeasurementRaw(String name, Properties props) {
     super(name);
 
+    String binaryOutputDir = props.getProperty(BINARY_OUTPUT_DIR, BINARY_OUTPUT_DIR_DEFAULT);
     String outputFilePath = props.getProperty(OUTPUT_FILE_PATH, OUTPUT_FILE_PATH_DEFAULT);
-    if (!outputFilePath.isEmpty()) {
+    keepSpillFile = !binaryOutputDir.isEmpty();
+    try {
+      if (keepSpillFile) {
+        spillFile = Paths.get(binaryOutputDir, name + ".raw");
+        System.out.println("Raw data measurement: will output to binary file: " + spillFile);
+      } else {
+        spillFile = Files.createTempFile("ycsb-raw-", ".raw");
+        spillFile.toFile().deleteOnExit();
+      }
+      spill = FileChannel.open(spillFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    } catch (IOException e) {
+      throw new RuntimeException("Failed to open raw data spill file", e);
+    }
+
+    if (keepSpillFile) {
+      outputStream = null;
+    } else if (!outputFilePath.isEmpty()) {
       System.out.println("Raw data measurement: will output to result file: " +
           outputFilePath);
 
       try {
         outputStream = new PrintStream(
-            new FileOutputStream(outputFilePath, true),
-            true);
+            new BufferedOutputStream(new FileOutputStream(outputFilePath, true), 1 << 16),
+            false);
       } catch (FileNotFoundException e) {
         throw new RuntimeException("Failed to open raw data output file", e);
       }
@@ -125,17 +238,73 @@ public class OneMeasurementRaw extends OneMeasurement {
 
     noSummaryStats = Boolean.parseBoolean(props.getProperty(NO_SUMMARY_STATS,
         NO_SUMMARY_STATS_DEFAULT));
-
-    measurements = new LinkedList<>();
+    int size = Integer.parseInt(props.getProperty(BUFFER_SIZE, BUFFER_SIZE_DEFAULT));
+    if (size < 1) {
+      throw new IllegalArgumentException(BUFFER_SIZE + " must be positive: " + size);
+    }
+    bufferSize = size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+
+    startTime = System.currentTimeMillis();
+    spillBuffer.putLong(startTime);
+    threadBuffer = ThreadLocal.withInitial(this::newBuffer);
+    writer = new Thread(this::drainUntilStopped, "Raw measurement writer " + name);
+    writer.setDaemon(true);
+    writer.start();
   }
 
   @Override
-  public synchronized void measure(int latency) {
-    totalLatency += latency;
-    windowTotalLatency += latency;
-    windowOperations++;
+  public void measure(int latency) {
+    histogram.recordValue(latency);
+    long elapsed = System.currentTimeMillis() - startTime;
+    threadBuffer.get().add(elapsed << 32 | (latency & 0xFFFFFFFFL));
+  }
+
+  private RingBuffer newBuffer() {
+    RingBuffer buffer = new RingBuffer();
+    buffers.add(buffer);
+    return buffer;
+  }
+
+  private void drainUntilStopped() {
+    try {
+      while (running) {
+        if (!drain()) {
+          LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+        }
+      }
+    } catch (IOException e) {
+      failure = e;
+      System.err.println("Failed to write raw data points of " + getName() + ", dropping the rest: " + e);
+    }
+  }
 
-    measurements.add(new RawDataPoint(latency));
+  /**
+   * Writes the buffered data points of all threads to the spill file.
+   *
+   * @return Whether there was anything to drain.
+   */
+  private boolean drain() throws IOException {
+    synchronized (spillBuffer) {
+      boolean drained = false;
+      for (RingBuffer buffer : buffers) {
+        // a thread that ended before the drain has nothing left to add
+        boolean ended = !buffer.owner.isAlive();
+        drained |= buffer.drainTo(spillBuffer);
+        if (ended) {
+          buffers.remove(buffer);
+        }
+      }
+      flush(spillBuffer);
+      return drained;
+    }
+  }
+
+  private void flush(ByteBuffer out) throws IOException {
+    out.flip();
+    while (out.hasRemaining()) {
+      spill.write(out);
+    }
+    out.clear();
   }
 
   @Override
@@ -143,65 +312,95 @@ public class OneMeasurementRaw extends OneMeasurement {
       throws IOException {
     // Output raw data points first then print out a summary of percentiles to
     // stdout.
-
-    outputStream.println(getName() +
-        " latency raw data: op, timestamp(ms), latency(us)");
-    for (RawDataPoint point : measurements) {
-      outputStream.println(
-          String.format("%s,%d,%d", getName(), point.timeStamp(),
-              point.value()));
+    running = false;
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
     }
-    if (outputStream != System.out) {
-      outputStream.close();
+    if (failure == null) {
+      drain();
+    }
+    spill.close();
+    if (failure != null) {
+      throw failure;
     }
 
-    int totalOps = measurements.size();
+    if (!keepSpillFile) {
+      writeText();
+      Files.delete(spillFile);
+    }
+
+    accumulateInterval();
+    long totalOps = totalHistogram.getTotalCount();
     exporter.write(getName(), "Total Operations", totalOps);
     if (totalOps > 0 && !noSummaryStats) {
       exporter.write(getName(),
           "Below is a summary of latency in microseconds:", -1);
-      exporter.write(getName(), "Average",
-          (double) totalLatency / (double) totalOps);
-
-      Collections.sort(measurements, new RawDataPointComparator());
-
-      exporter.write(getName(), "Min", measurements.get(0).value());
-      exporter.write(
-          getName(), "Max", measurements.get(totalOps - 1).value());
-      exporter.write(
-          getName(), "p1", measurements.get((int) (totalOps * 0.01)).value());
-      exporter.write(
-          getName(), "p5", measurements.get((int) (totalOps * 0.05)).value());
-      exporter.write(
-          getName(), "p50", measurements.get((int) (totalOps * 0.5)).value());
-      exporter.write(
-          getName(), "p90", measurements.get((int) (totalOps * 0.9)).value());
-      exporter.write(
-          getName(), "p95", measurements.get((int) (totalOps * 0.95)).value());
-      exporter.write(
-          getName(), "p99", measurements.get((int) (totalOps * 0.99)).value());
-      exporter.write(getName(), "p99.9",
-          measurements.get((int) (totalOps * 0.999)).value());
-      exporter.write(getName(), "p99.99",
-          measurements.get((int) (totalOps * 0.9999)).value());
+      exporter.write(getName(), "Average", totalHistogram.getMean());
+      exporter.write(getName(), "Min", totalHistogram.getMinValue());
+      exporter.write(getName(), "Max", totalHistogram.getMaxValue());
+      for (double percentile : PERCENTILES) {
+        exporter.write(getName(), "p" + (percentile % 1 == 0 ? String.valueOf((int) percentile) : percentile),
+            totalHistogram.getValueAtPercentile(percentile));
+      }
     }
+    exporter.write(getName(), "Buffer Wait Time(ms)", TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()));
+    exporter.write(getName(), "Dropped Data Points", droppedPoints.sum());
 
     exportStatusCounts(exporter);
   }
 
+  /**
+   * Streams the data points of the spill file to the output as text.
+   */
+  private void writeText() throws IOException {
+    outputStream.println(getName() +
+        " latency raw data: op, timestamp(ms), latency(us)");
+    try (FileChannel in = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+      boolean header = true;
+      StringBuilder line = new StringBuilder();
+      while (in.read(buffer) >= 0) {
+        buffer.flip();
+        if (header && buffer.remaining() >= 8) {
+          buffer.getLong();
+          header = false;
+        }
+        while (!header && buffer.remaining() >= 8) {
+          long point = buffer.getLong();
+          line.setLength(0);
+          line.append(getName()).append(',').append(startTime + (point >>> 32)).append(',').append((int) point);
+          outputStream.println(line);
+        }
+        buffer.compact();
+      }
+    }
+    if (outputStream != System.out) {
+      outputStream.close();
+    } else {
+      outputStream.flush();
+    }
+  }
+
   @Override
-  public synchronized String getSummary() {
-    if (windowOperations == 0) {
+  public String getSummary() {
+    Histogram intervalHistogram = accumulateInterval();
+    if (intervalHistogram.getTotalCount() == 0) {
       return "";
     }
 
-    String toReturn = String.format("%s count: %d, average latency(us): %.2f",
-        getName(), windowOperations,
-        (double) windowTotalLatency / (double) windowOperations);
-
-    windowTotalLatency = 0;
-    windowOperations = 0;
+    return String.format("%s count: %d, average latency(us): %.2f",
+        getName(), intervalHistogram.getTotalCount(), intervalHistogram.getMean());
+  }
 
-    return toReturn;
+  /**
+   * @return The data points since the last call, which are added to the total.
+   */
+  private synchronized Histogram accumulateInterval() {
+    Histogram intervalHistogram = histogram.getIntervalHistogram();
+    totalHistogram.add(intervalHistogram);
+    setLastInterval(intervalHistogram);
+    return intervalHistogram;
   }
 }
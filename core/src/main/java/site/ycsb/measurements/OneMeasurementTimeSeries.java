@@ -21,25 +21,37 @@ import site.ycsb.measurements.exporter.MeasurementsExporter;
 
 import java.io.IOException;
 import java.text.DecimalFormat;
+import java.util.AbstractMap;
+import java.util.Map;
 import java.util.Properties;
-import java.util.Vector;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * The operations of one time unit of a time series.
+ */
 class SeriesUnit {
-  /**
-   * @param time
-   * @param average
-   */
-  public SeriesUnit(long time, double average) {
-    this.time = time;
-    this.average = average;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  void add(int latency) {
+    count.increment();
+    sum.add(latency);
   }
 
-  protected final long time;
-  protected final double average;
+  double average() {
+    return ((double) sum.sum()) / ((double) count.sum());
+  }
 }
 
 /**
  * A time series measurement of a metric, such as READ LATENCY.
+ *
+ * Each time unit has its own striped counters, found in a concurrent map by the start of the unit, and
+ * each thread remembers the unit it measured last. A new unit starts when the first thread measures in
+ * it, so threads never wait for each other, not even when a unit ends.
  */
 public class OneMeasurementTimeSeries extends OneMeasurement {
 
@@ -50,96 +62,104 @@ public class OneMeasurementTimeSeries extends OneMeasurement {
   public static final String GRANULARITY_DEFAULT = "1000";
 
   private final int granularity;
-  private final Vector<SeriesUnit> measurements;
+  /**
+   * The time units that have operations, by their start in milliseconds since the first measurement.
+   */
+  private final ConcurrentSkipListMap<Long, SeriesUnit> measurements = new ConcurrentSkipListMap<>();
+
+  /**
+   * The unit each thread measured last, and its start.
+   */
+  private final ThreadLocal<Map.Entry<Long, SeriesUnit>> threadunit = new ThreadLocal<>();
 
-  private long start = -1;
-  private long currentunit = -1;
-  private long count = 0;
-  private long sum = 0;
-  private long operations = 0;
-  private long totallatency = 0;
+  /**
+   * The time of the first measurement, or -1 before it.
+   */
+  private final AtomicLong start = new AtomicLong(-1);
+  private final LongAdder operations = new LongAdder();
+  private final LongAdder totallatency = new LongAdder();
 
   //keep a windowed version of these stats for printing status
-  private int windowoperations = 0;
-  private long windowtotallatency = 0;
+  private final LongAdder windowoperations = new LongAdder();
+  private final LongAdder windowtotallatency = new LongAdder();
 
-  private int min = -1;
-  private int max = -1;
+  private final LongAccumulator min = new LongAccumulator(Math::min, Long.MAX_VALUE);
+  private final LongAccumulator max = new LongAccumulator(Math::max, Long.MIN_VALUE);
 
   public OneMeasurementTimeSeries(String name, Properties props) {
     super(name);
     granularity = Integer.parseInt(props.getProperty(GRANULARITY, GRANULARITY_DEFAULT));
-    measurements = new Vector<>();
   }
 
-  private synchronized void checkEndOfUnit(boolean forceend) {
+  /**
+   * @return The unit of the current time.
+   */
+  private SeriesUnit currentUnit() {
     long now = System.currentTimeMillis();
-
-    if (start < 0) {
-      currentunit = 0;
-      start = now;
+    long first = start.get();
+    if (first < 0) {
+      start.compareAndSet(-1, now);
+      first = start.get();
     }
+    long unit = Math.max((now - first) / granularity, 0) * granularity;
 
-    long unit = ((now - start) / granularity) * granularity;
-
-    if ((unit > currentunit) || (forceend)) {
-      double avg = ((double) sum) / ((double) count);
-      measurements.add(new SeriesUnit(currentunit, avg));
-
-      currentunit = unit;
-
-      count = 0;
-      sum = 0;
+    Map.Entry<Long, SeriesUnit> last = threadunit.get();
+    if (last != null && last.getKey() == unit) {
+      return last.getValue();
+    }
+    SeriesUnit series = measurements.get(unit);
+    if (series == null) {
+      SeriesUnit created = new SeriesUnit();
+      series = measurements.putIfAbsent(unit, created);
+      if (series == null) {
+        series = created;
+      }
     }
+    threadunit.set(new AbstractMap.SimpleImmutableEntry<>(unit, series));
+    return series;
   }
 
   @Override
   public void measure(int latency) {
-    checkEndOfUnit(false);
-
-    count++;
-    sum += latency;
-    totallatency += latency;
-    operations++;
-    windowoperations++;
-    windowtotallatency += latency;
+    currentUnit().add(latency);
 
-    if (latency > max) {
-      max = latency;
-    }
+    totallatency.add(latency);
+    operations.increment();
+    windowoperations.increment();
+    windowtotallatency.add(latency);
 
-    if ((latency < min) || (min < 0)) {
-      min = latency;
-    }
+    max.accumulate(latency);
+    min.accumulate(latency);
   }
 
 
   @Override
   public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-    checkEndOfUnit(true);
-
-    exporter.write(getName(), "Operations", operations);
-    exporter.write(getName(), "AverageLatency(us)", (((double) totallatency) / ((double) operations)));
-    exporter.write(getName(), "MinLatency(us)", min);
-    exporter.write(getName(), "MaxLatency(us)", max);
+    long ops = operations.sum();
+    exporter.write(getName(), "Operations", ops);
+    exporter.write(getName(), "AverageLatency(us)", (((double) totallatency.sum()) / ((double) ops)));
+    exporter.write(getName(), "MinLatency(us)", ops == 0 ? -1 : (int) min.get());
+    exporter.write(getName(), "MaxLatency(us)", ops == 0 ? -1 : (int) max.get());
 
     // TODO: 95th and 99th percentile latency
 
     exportStatusCounts(exporter);
-    for (SeriesUnit unit : measurements) {
-      exporter.write(getName(), Long.toString(unit.time), unit.average);
+    for (Map.Entry<Long, SeriesUnit> unit : measurements.entrySet()) {
+      exporter.write(getName(), Long.toString(unit.getKey()), unit.getValue().average());
     }
   }
 
   @Override
   public String getSummary() {
-    if (windowoperations == 0) {
+    // see OneMeasurementHistogram#getSummary()
+    long ops = windowoperations.sumThenReset();
+    long total = windowtotallatency.sumThenReset();
+    setLastIntervalSummary(ops, total);
+    if (ops == 0) {
       return "";
     }
     DecimalFormat d = new DecimalFormat("#.##");
-    double report = ((double) windowtotallatency) / ((double) windowoperations);
-    windowtotallatency = 0;
-    windowoperations = 0;
+    double report = ((double) total) / ((double) ops);
     return "[" + getName() + " AverageLatency(us)=" + d.format(report) + "]";
   }
 
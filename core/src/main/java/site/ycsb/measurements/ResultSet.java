@@ -0,0 +1,443 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import org.HdrHistogram.Histogram;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.MappingIterator;
+import org.codehaus.jackson.map.ObjectMapper;
+import site.ycsb.measurements.exporter.MeasurementsExporter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+
+/**
+ * The results of one or more client processes merged into one, for example of clients that ran against the same
+ * cluster at the same time. Results are read from the HdrHistogram interval logs written with
+ * hdrhistogram.fileoutput and from the exports of the JSON exporters.
+ *
+ * The latency histograms of the logs are added up, so the percentiles of the merged result are exact, unlike any
+ * average of the percentiles of the clients. Intervals are aligned by time: buckets of the merged result are
+ * multiples of the interval length since the epoch. The operations of an interval of a client are split over the
+ * buckets it overlaps, in proportion to the overlap, so that clients whose intervals aren't aligned to the buckets
+ * don't make the counts jump. The latencies of an interval, which can't be split, are added to the bucket its
+ * middle falls in.
+ *
+ * JSON exports contribute the overall runtime and throughput, the return codes and their interval records. They
+ * contribute the operations, average, min and max latency only of measurements that no log was given for, as their
+ * percentiles can't be merged; give either the logs of all clients or of none.
+ */
+public class ResultSet {
+  /**
+   * The name of the overall result, as in the exports.
+   */
+  public static final String OVERALL = "OVERALL";
+
+  /**
+   * The merged results of one measurement, such as READ.
+   */
+  public static final class Result {
+    private final String name;
+    private final long intervalMs;
+    private Histogram total;
+    private final SortedMap<Long, Histogram> intervals = new TreeMap<>();
+    private final SortedMap<Long, Double> intervalOperations = new TreeMap<>();
+    private final Map<String, Long> returnCodes = new TreeMap<>();
+    private long operations;
+    private double latencySum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+
+    private Result(String name, long intervalMs) {
+      this.name = name;
+      this.intervalMs = intervalMs;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * @return The latencies of all clients, or null if no log was given for the measurement.
+     */
+    public Histogram getTotal() {
+      return total;
+    }
+
+    /**
+     * @return The latencies of all clients by the start of the bucket, empty if no log was given.
+     */
+    public SortedMap<Long, Histogram> getIntervals() {
+      return intervals;
+    }
+
+    /**
+     * @return The number of operations of all clients by the start of the bucket, from the first bucket with
+     * operations to the last one, 0 for the buckets in between that none of the intervals overlap.
+     */
+    public SortedMap<Long, Double> getIntervalOperations() {
+      SortedMap<Long, Double> counts = new TreeMap<>(intervalOperations);
+      if (!counts.isEmpty()) {
+        for (long bucket = counts.firstKey(); bucket < counts.lastKey(); bucket += intervalMs) {
+          counts.putIfAbsent(bucket, 0.0);
+        }
+      }
+      return counts;
+    }
+
+    /**
+     * @return The number of operations of all clients.
+     */
+    public long getOperations() {
+      return total != null ? total.getTotalCount() : operations;
+    }
+
+    public Map<String, Long> getReturnCodes() {
+      return returnCodes;
+    }
+
+    private void addInterval(long bucket, Histogram interval) {
+      if (total == null) {
+        total = new Histogram(3);
+      }
+      total.add(interval);
+      Histogram merged = intervals.get(bucket);
+      if (merged == null) {
+        merged = new Histogram(3);
+        intervals.put(bucket, merged);
+      }
+      merged.add(interval);
+    }
+
+    /**
+     * Split the operations of an interval over the buckets it overlaps, in proportion to the overlap.
+     */
+    private void addOperations(long start, long end, double ops) {
+      if (end <= start) {
+        intervalOperations.merge(Math.floorDiv(start, intervalMs) * intervalMs, ops, Double::sum);
+        return;
+      }
+      for (long bucket = Math.floorDiv(start, intervalMs) * intervalMs; bucket < end; bucket += intervalMs) {
+        long overlap = Math.min(end, bucket + intervalMs) - Math.max(start, bucket);
+        intervalOperations.merge(bucket, ops * overlap / (end - start), Double::sum);
+      }
+    }
+
+    private void addSummary(long ops, double average, long minimum, long maximum) {
+      if (ops == 0) {
+        return;
+      }
+      operations += ops;
+      latencySum += average * ops;
+      min = Math.min(min, minimum);
+      max = Math.max(max, maximum);
+    }
+
+    private void export(MeasurementsExporter exporter, List<Double> percentiles) throws IOException {
+      if (total != null) {
+        exporter.write(name, "Operations", total.getTotalCount());
+        exporter.write(name, "AverageLatency(us)", total.getMean());
+        exporter.write(name, "MinLatency(us)", total.getMinValue());
+        exporter.write(name, "MaxLatency(us)", total.getMaxValue());
+        for (Double percentile : percentiles) {
+          exporter.write(name, OneMeasurementHdrHistogram.ordinal(percentile) + "PercentileLatency(us)",
+              total.getValueAtPercentile(percentile));
+        }
+      } else if (operations > 0) {
+        exporter.write(name, "Operations", operations);
+        exporter.write(name, "AverageLatency(us)", latencySum / operations);
+        exporter.write(name, "MinLatency(us)", min);
+        exporter.write(name, "MaxLatency(us)", max);
+      }
+      for (Map.Entry<String, Long> entry : returnCodes.entrySet()) {
+        exporter.write(name, "Return=" + entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  private final long intervalMs;
+  private final Map<String, Result> results = new TreeMap<>();
+  private long runtime = -1;
+  private double throughput;
+
+  /**
+   * @param intervalMs The length of the buckets the intervals are aligned to, in milliseconds.
+   */
+  public ResultSet(long intervalMs) {
+    if (intervalMs <= 0) {
+      throw new IllegalArgumentException("The interval must be positive: " + intervalMs);
+    }
+    this.intervalMs = intervalMs;
+  }
+
+  public long getIntervalMs() {
+    return intervalMs;
+  }
+
+  /**
+   * @return The longest runtime of the clients in milliseconds, or -1 if no export was given.
+   */
+  public long getRuntime() {
+    return runtime;
+  }
+
+  /**
+   * @return The sum of the throughputs of the clients, in operations per second.
+   */
+  public double getThroughput() {
+    return throughput;
+  }
+
+  /**
+   * @return The result of a measurement, or null if there is none.
+   */
+  public Result getResult(String name) {
+    return results.get(name);
+  }
+
+  /**
+   * @return The results of all measurements including the overall one, by name.
+   */
+  public Collection<Result> getResults() {
+    return results.values();
+  }
+
+  /**
+   * Add the results of files: HdrHistogram logs ending in ".hdr", JSON exports ending in ".json" and directories,
+   * which are searched for both.
+   *
+   * @param path The file or directory.
+   * @throws IOException if a file can't be read or is malformed.
+   */
+  public void add(Path path) throws IOException {
+    List<Path> files;
+    if (Files.isDirectory(path)) {
+      try (Stream<Path> walk = Files.walk(path)) {
+        files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+      }
+    } else {
+      files = new ArrayList<>();
+      files.add(path);
+    }
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      if (name.endsWith(".hdr")) {
+        addLog(file, name.substring(0, name.length() - ".hdr".length()));
+      } else if (name.endsWith(".json")) {
+        addExport(file);
+      } else if (!Files.isDirectory(path)) {
+        throw new IOException("Not a .hdr or .json file: " + file);
+      }
+    }
+  }
+
+  /**
+   * Add an HdrHistogram interval log.
+   *
+   * @param file The log.
+   * @param name The name of the measurement, unless the log names it.
+   */
+  private void addLog(Path file, String name) throws IOException {
+    String measurement = name;
+    double startTimeSec = 0;
+    Result result = null;
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      int lineno = 0;
+      while ((line = reader.readLine()) != null) {
+        lineno++;
+        if (line.startsWith("#[Logging for: ")) {
+          measurement = line.substring("#[Logging for: ".length(), line.lastIndexOf(']'));
+        } else if (line.startsWith("#[StartTime: ")) {
+          startTimeSec = Double.parseDouble(line.substring("#[StartTime: ".length()).split(" ")[0]);
+        } else if (!line.isEmpty() && !line.startsWith("#") && !line.startsWith("\"")) {
+          String[] fields = line.split(",");
+          int first = fields[0].startsWith("Tag=") ? 1 : 0;
+          if (fields.length != first + 4) {
+            throw new IOException(file + " line " + lineno + ": expected 4 fields: " + line);
+          }
+          long start = Math.round((startTimeSec + Double.parseDouble(fields[first])) * 1000);
+          long end = start + Math.round(Double.parseDouble(fields[first + 1]) * 1000);
+          Histogram interval;
+          try {
+            interval = Histogram.decodeFromCompressedByteBuffer(
+                ByteBuffer.wrap(Base64.getDecoder().decode(fields[first + 3])), 0);
+          } catch (DataFormatException | IllegalArgumentException e) {
+            throw new IOException(file + " line " + lineno + ": malformed histogram", e);
+          }
+          if (result == null) {
+            result = result(measurement);
+          }
+          result.addInterval(bucket(start, end), interval);
+          result.addOperations(start, end, interval.getTotalCount());
+        }
+      }
+    }
+  }
+
+  /**
+   * Add an export of the JSON or JSON array exporter.
+   */
+  private void addExport(Path file) throws IOException {
+    Map<String, Map<String, JsonNode>> summaries = new LinkedHashMap<>();
+    MappingIterator<JsonNode> nodes = new ObjectMapper().reader(JsonNode.class).readValues(file.toFile());
+    while (nodes.hasNext()) {
+      JsonNode node = nodes.next();
+      Iterator<JsonNode> records = node.isArray() ? node.getElements() : Collections.singleton(node).iterator();
+      while (records.hasNext()) {
+        JsonNode record = records.next();
+        String metric = record.path("metric").asText();
+        String measurement = record.path("measurement").asText();
+        if (metric.isEmpty() || measurement.isEmpty()) {
+          throw new IOException(file + ": not a measurement: " + record);
+        }
+        if (measurement.equals("Interval")) {
+          long start = record.path("start").asLong();
+          long end = record.path("end").asLong();
+          result(metric).addOperations(start, end, record.path("Operations").asLong());
+        } else {
+          summaries.computeIfAbsent(metric, k -> new LinkedHashMap<>()).put(measurement, record.path("value"));
+        }
+      }
+    }
+
+    for (Map.Entry<String, Map<String, JsonNode>> entry : summaries.entrySet()) {
+      addSummary(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void addSummary(String metric, Map<String, JsonNode> values) {
+    if (metric.equals(OVERALL)) {
+      if (values.containsKey("RunTime(ms)")) {
+        runtime = Math.max(runtime, values.get("RunTime(ms)").asLong());
+      }
+      if (values.containsKey("Throughput(ops/sec)")) {
+        throughput += values.get("Throughput(ops/sec)").asDouble();
+      }
+      result(metric);
+      return;
+    }
+    // the hdrhistogram and histogram measurements name them one way, the raw measurement another
+    String[][] names = {{"Operations", "AverageLatency(us)", "MinLatency(us)", "MaxLatency(us)"},
+                        {"Total Operations", "Average", "Min", "Max"}};
+    for (String[] keys : names) {
+      if (values.containsKey(keys[0])) {
+        long ops = values.get(keys[0]).asLong();
+        if (ops > 0 && values.containsKey(keys[1]) && values.containsKey(keys[2]) && values.containsKey(keys[3])) {
+          result(metric).addSummary(ops, values.get(keys[1]).asDouble(), values.get(keys[2]).asLong(),
+              values.get(keys[3]).asLong());
+        } else {
+          result(metric);
+        }
+        break;
+      }
+    }
+    for (Map.Entry<String, JsonNode> entry : values.entrySet()) {
+      if (entry.getKey().startsWith("Return=")) {
+        result(metric).returnCodes.merge(entry.getKey().substring("Return=".length()), entry.getValue().asLong(),
+            Long::sum);
+      }
+    }
+  }
+
+  private Result result(String name) {
+    return results.computeIfAbsent(name, n -> new Result(n, intervalMs));
+  }
+
+  /**
+   * @return The bucket the middle of the interval falls in.
+   */
+  private long bucket(long start, long end) {
+    return Math.floorDiv(start + (end - start) / 2, intervalMs) * intervalMs;
+  }
+
+  /**
+   * Export the merged results the way a client exports its results: the intervals first, each with the overall
+   * result first, then the totals.
+   *
+   * @param exporter    The exporter to write to.
+   * @param percentiles The percentiles to include.
+   * @throws IOException if writing failed.
+   */
+  public void export(MeasurementsExporter exporter, List<Double> percentiles) throws IOException {
+    TreeSet<Long> buckets = new TreeSet<>();
+    for (Result result : results.values()) {
+      buckets.addAll(result.getIntervalOperations().keySet());
+    }
+    Map<Result, SortedMap<Long, Double>> operations = new LinkedHashMap<>();
+    Result overall = results.get(OVERALL);
+    if (overall != null) {
+      operations.put(overall, overall.getIntervalOperations());
+    }
+    for (Result result : results.values()) {
+      operations.putIfAbsent(result, result.getIntervalOperations());
+    }
+    for (long bucket : buckets) {
+      for (Map.Entry<Result, SortedMap<Long, Double>> entry : operations.entrySet()) {
+        Double ops = entry.getValue().get(bucket);
+        if (ops != null) {
+          exportInterval(exporter, entry.getKey(), bucket, ops, percentiles);
+        }
+      }
+    }
+
+    if (runtime >= 0) {
+      exporter.write(OVERALL, "RunTime(ms)", runtime);
+      exporter.write(OVERALL, "Throughput(ops/sec)", throughput);
+    }
+    for (Result result : results.values()) {
+      if (!result.name.equals(OVERALL)) {
+        result.export(exporter, percentiles);
+      }
+    }
+  }
+
+  private void exportInterval(MeasurementsExporter exporter, Result result, long bucket, double ops,
+                              List<Double> percentiles) throws IOException {
+    long end = bucket + intervalMs;
+    Histogram interval = result.intervals.get(bucket);
+    Map<String, Number> values;
+    if (interval != null) {
+      values = Measurements.intervalValues(interval, bucket, end, percentiles);
+    } else {
+      values = new LinkedHashMap<>();
+    }
+    // the split operations rather than those of the latencies added to the bucket
+    values.put("Operations", Math.round(ops));
+    values.put("Throughput(ops/sec)", 1000.0 * ops / intervalMs);
+    exporter.writeInterval(result.name, bucket, end, values);
+  }
+}
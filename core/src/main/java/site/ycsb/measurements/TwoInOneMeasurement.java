@@ -20,7 +20,10 @@ package site.ycsb.measurements;
 import site.ycsb.Status;
 import site.ycsb.measurements.exporter.MeasurementsExporter;
 
+import org.HdrHistogram.Histogram;
+
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * delegates to 2 measurement instances.
@@ -73,4 +76,21 @@ public class TwoInOneMeasurement extends OneMeasurement {
     return thing1.getSummary() + "\n" + thing2.getSummary();
   }
 
+  @Override
+  public Histogram getLastInterval() {
+    Histogram interval = thing1.getLastInterval();
+    return interval != null ? interval : thing2.getLastInterval();
+  }
+
+  @Override
+  public IntervalSummary getLastIntervalSummary() {
+    IntervalSummary summary = thing1.getLastIntervalSummary();
+    return summary != null ? summary : thing2.getLastIntervalSummary();
+  }
+
+  @Override
+  public Map<Status, Integer> getStatusCounts() {
+    return thing1.getStatusCounts();
+  }
+
 }
@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2017 YCSB contributors All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+package site.ycsb.measurements.exporter;
+
+import org.codehaus.jackson.JsonGenerator;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Writes the interval objects shared by the JSON exporters.
+ */
+final class JSONIntervalWriter {
+
+  private JSONIntervalWriter() {
+    // utility class
+  }
+
+  /**
+   * Writes one object for the interval, flushed right away so the file can be followed while the run is in
+   * progress.
+   */
+  static void writeInterval(JsonGenerator g, String metric, long start, long end,
+                            Map<String, Number> measurements) throws IOException {
+    g.writeStartObject();
+    g.writeStringField("metric", metric);
+    g.writeStringField("measurement", "Interval");
+    g.writeNumberField("start", start);
+    g.writeNumberField("end", end);
+    for (Map.Entry<String, Number> entry : measurements.entrySet()) {
+      Number value = entry.getValue();
+      if (value instanceof Double || value instanceof Float) {
+        g.writeNumberField(entry.getKey(), value.doubleValue());
+      } else {
+        g.writeNumberField(entry.getKey(), value.longValue());
+      }
+    }
+    g.writeEndObject();
+    g.flush();
+  }
+}
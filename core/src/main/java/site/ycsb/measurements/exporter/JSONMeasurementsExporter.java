@@ -24,6 +24,7 @@ import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.util.Map;
 
 /**
  * Export measurements into a machine readable JSON file.
@@ -64,6 +65,15 @@ public class JSONMeasurementsExporter implements MeasurementsExporter {
     g.writeEndObject();
   }
 
+  /**
+   * Writes one object per interval, flushed right away so the file can be followed while the run is in progress.
+   */
+  @Override
+  public void writeInterval(String metric, long start, long end, Map<String, Number> measurements)
+      throws IOException {
+    JSONIntervalWriter.writeInterval(g, metric, start, end, measurements);
+  }
+
   public void close() throws IOException {
     if (g != null) {
       g.close();
@@ -18,6 +18,7 @@ package site.ycsb.measurements.exporter;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Map;
 
 /**
  * Used to export the collected measurements into a useful format, for example
@@ -53,4 +54,18 @@ public interface MeasurementsExporter extends Closeable {
    * @throws IOException if writing failed
    */
   void write(String metric, String measurement, double d) throws IOException;
+
+  /**
+   * Write the measurements of one status interval, while the run is in progress. Exporters that only report the
+   * end of the run ignore them.
+   *
+   * @param metric Metric name, for example "READ".
+   * @param start The start of the interval, in milliseconds since the epoch.
+   * @param end The end of the interval, in milliseconds since the epoch.
+   * @param measurements The measurements of the interval by name, for example "Operations".
+   * @throws IOException if writing failed
+   */
+  default void writeInterval(String metric, long start, long end, Map<String, Number> measurements)
+      throws IOException {
+  }
 }
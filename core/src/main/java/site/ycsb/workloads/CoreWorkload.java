@@ -20,10 +20,15 @@ package site.ycsb.workloads;
 import site.ycsb.*;
 import site.ycsb.generator.*;
 import site.ycsb.generator.UniformLongGenerator;
+import site.ycsb.measurements.MeasurementHandle;
 import site.ycsb.measurements.Measurements;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 /**
  * The core benchmark scenario. Represents a set of clients doing simple CRUD operations. The
@@ -44,6 +49,8 @@ import java.util.*;
  * <LI><b>scanproportion</b>: what proportion of operations should be scans (default: 0)
  * <LI><b>readmodifywriteproportion</b>: what proportion of operations should be read a record,
  * modify it, write it back (default: 0)
+ * <LI><b>deleteproportion</b>: what proportion of operations should delete the oldest live record; other
+ * operations then only choose live records (default: 0)
  * <LI><b>requestdistribution</b>: what distribution should be used to select the records to operate
  * on - uniform, zipfian, hotspot, sequential, exponential or latest (default: uniform)
  * <LI><b>minscanlength</b>: for scans, what is the minimum number of records to scan (default: 1)
@@ -63,6 +70,17 @@ import java.util.*;
  * order ("hashed") (default: hashed)
  * <LI><b>fieldnameprefix</b>: what should be a prefix for field names, the shorter may decrease the
  * required storage size (default: "field")
+ * <LI><b>readbatchsize</b>: the number of records read by each read operation through
+ * {@link DB#batchRead} (default: 1, no batching)
+ * <LI><b>updatebatchsize</b>: the number of records written by each update operation through
+ * {@link DB#batchUpdate} (default: 1, no batching)
+ * <LI><b>insertbatchsize</b>: the number of records written by each insert of the load phase through
+ * {@link DB#batchInsert} (default: 1, no batching)
+ * <LI><b>keygroupsize</b>: the number of correlated keys each read operation reads, the chosen key and keys
+ * derived from it (default: 1, no groups)
+ * <LI><b>keygroupspread</b>: how far apart the keys of a group are, 0 for consecutive keys (default: 0)
+ * <LI><b>keygroupread</b>: how groups are read, "batch" for one {@link DB#batchRead} call or "sequential" for one
+ * read after another (default: batch)
  * </ul>
  */
 public class CoreWorkload extends Workload {
@@ -127,7 +145,7 @@ public class CoreWorkload extends Workload {
 
   /**
    * The name of a property that specifies the filename containing the field length histogram (only
-   * used if fieldlengthdistribution is "histogram").
+   * used if fieldlengthdistribution is "histogram"). See {@link HistogramGenerator} for the formats.
    */
   public static final String FIELD_LENGTH_HISTOGRAM_FILE_PROPERTY = "fieldlengthhistogram";
 
@@ -142,6 +160,45 @@ public class CoreWorkload extends Workload {
    */
   protected NumberGenerator fieldlengthgenerator;
 
+  /**
+   * The name of the property for how random field values are generated: "random" draws every byte at random,
+   * "pool" copies a slice of a shared pool of random bytes, which is cheaper but makes values less unique.
+   */
+  public static final String VALUE_GENERATOR_PROPERTY = "valuegenerator";
+
+  /**
+   * The default value generator.
+   */
+  public static final String VALUE_GENERATOR_PROPERTY_DEFAULT = "random";
+
+  protected boolean pooledvalues;
+
+  /**
+   * The name of the property for the compressed size of random field values as a fraction of their size, e.g. 0.5
+   * for values that block compressors such as LZ4, Snappy or zstd halve. 1 generates incompressible values.
+   */
+  public static final String VALUE_COMPRESSIBILITY_PROPERTY = "valuecompressibility";
+
+  /**
+   * The default value compressibility.
+   */
+  public static final String VALUE_COMPRESSIBILITY_PROPERTY_DEFAULT = "1.0";
+
+  protected double valuecompressibility;
+
+  /**
+   * The name of the property for the seed of the random numbers that choose operations, keys, fields and values.
+   * Each client thread draws from its own stream, derived from the seed and the thread id, so a run with one thread
+   * replays exactly. With more threads, the order in which threads claim shared sequences such as the insert keys
+   * still varies. If not set, every run is different.
+   */
+  public static final String RANDOM_SEED_PROPERTY = "randomseed";
+
+  /**
+   * The seed, or null if not set.
+   */
+  protected Long randomseed;
+
   /**
    * The name of the property for deciding whether to read one field (false) or all fields (true) of
    * a record.
@@ -250,6 +307,18 @@ public class CoreWorkload extends Workload {
    */
   public static final String READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT = "0.0";
 
+  /**
+   * The name of the property for the proportion of transactions that are deletes. Deletes remove the oldest live
+   * record, as records expire or are retired in order, and with deletes the other operations choose among the live
+   * records only, with the uniform, zipfian or latest request distribution.
+   */
+  public static final String DELETE_PROPORTION_PROPERTY = "deleteproportion";
+
+  /**
+   * The default proportion of transactions that are deletes.
+   */
+  public static final String DELETE_PROPORTION_PROPERTY_DEFAULT = "0.0";
+
   /**
    * The name of the property for the the distribution of requests across the keyspace. Options are
    * "uniform", "zipfian" and "latest"
@@ -334,6 +403,27 @@ public class CoreWorkload extends Workload {
    */
   public static final String HOTSPOT_OPN_FRACTION_DEFAULT = "0.8";
 
+  /**
+   * The interval in milliseconds at which the hot set of the "movingzipfian" and "movinghotspot" request
+   * distributions moves.
+   */
+  public static final String HOTSPOT_MOVE_INTERVAL = "hotspotmoveinterval";
+
+  /**
+   * Default value of the interval at which the hot set moves.
+   */
+  public static final String HOTSPOT_MOVE_INTERVAL_DEFAULT = "60000";
+
+  /**
+   * The fraction of the key space the hot set of the "movingzipfian" request distribution slides per interval.
+   */
+  public static final String HOTSPOT_MOVE_FRACTION = "hotspotmovefraction";
+
+  /**
+   * Default value of the fraction of the key space the hot set slides per interval.
+   */
+  public static final String HOTSPOT_MOVE_FRACTION_DEFAULT = "0.1";
+
   /**
    * How many times to retry when insertion of a single item to a DB fails.
    */
@@ -346,6 +436,57 @@ public class CoreWorkload extends Workload {
   public static final String INSERTION_RETRY_INTERVAL = "core_workload_insertion_retry_interval";
   public static final String INSERTION_RETRY_INTERVAL_DEFAULT = "3";
 
+  /**
+   * The maximum number of transaction inserts whose keys have been handed out but not yet
+   * acknowledged. Further inserts wait until the oldest outstanding insert completes.
+   */
+  public static final String INSERT_WINDOW_SIZE_PROPERTY = "insertwindowsize";
+  public static final String INSERT_WINDOW_SIZE_PROPERTY_DEFAULT = "1048576";
+
+  /**
+   * The number of records read by each read operation. Values greater than 1 issue the reads as
+   * one {@link DB#batchRead} call.
+   */
+  public static final String READ_BATCH_SIZE_PROPERTY = "readbatchsize";
+  public static final String READ_BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The number of records written by each update operation. Values greater than 1 issue the
+   * updates as one {@link DB#batchUpdate} call.
+   */
+  public static final String UPDATE_BATCH_SIZE_PROPERTY = "updatebatchsize";
+  public static final String UPDATE_BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The number of records written by each insert of the load phase. Values greater than 1 issue
+   * the inserts as one {@link DB#batchInsert} call, and each operation counted by the client is
+   * then a batch; the load stops once insertcount records have been inserted.
+   */
+  public static final String INSERT_BATCH_SIZE_PROPERTY = "insertbatchsize";
+  public static final String INSERT_BATCH_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The number of keys each read operation reads: the key chosen by the request distribution, followed by keys
+   * derived from it by a {@link KeyGroupGenerator}, as a session is read together with the user's profile or a node
+   * of a graph together with its neighbours. Values greater than 1 read groups.
+   */
+  public static final String KEY_GROUP_SIZE_PROPERTY = "keygroupsize";
+  public static final String KEY_GROUP_SIZE_PROPERTY_DEFAULT = "1";
+
+  /**
+   * The locality of the keys of a group: the gap between consecutive keys of a group is 1 plus a number below the
+   * spread. 0 reads consecutive keys.
+   */
+  public static final String KEY_GROUP_SPREAD_PROPERTY = "keygroupspread";
+  public static final String KEY_GROUP_SPREAD_PROPERTY_DEFAULT = "0";
+
+  /**
+   * How the keys of a group are read: "batch" reads them with one {@link DB#batchRead} call, "sequential" reads
+   * them one after another, and the latency of the whole group is reported as "READ-GROUP".
+   */
+  public static final String KEY_GROUP_READ_PROPERTY = "keygroupread";
+  public static final String KEY_GROUP_READ_PROPERTY_DEFAULT = "batch";
+
   /**
    * Field name prefix.
    */
@@ -356,8 +497,24 @@ public class CoreWorkload extends Workload {
    */
   public static final String FIELD_NAME_PREFIX_DEFAULT = "field";
 
+  /**
+   * The operations of the core workload, named as in the generator from {@link #createOperationGenerator}.
+   */
+  public enum Operation {
+    READ,
+    UPDATE,
+    INSERT,
+    SCAN,
+    READMODIFYWRITE,
+    DELETE
+  }
+
   protected NumberGenerator keysequence;
   protected DiscreteGenerator operationchooser;
+  /**
+   * The operation for each index of operationchooser.
+   */
+  protected Operation[] operations;
   protected NumberGenerator keychooser;
   protected NumberGenerator fieldchooser;
   protected AcknowledgedCounterGenerator transactioninsertkeysequence;
@@ -368,20 +525,52 @@ public class CoreWorkload extends Workload {
   protected int zeropadding;
   protected int insertionRetryLimit;
   protected int insertionRetryInterval;
+  protected int readbatchsize;
+  protected int updatebatchsize;
+  protected int insertbatchsize;
+  /**
+   * The groups of keys read by read operations, or null to read single keys.
+   */
+  protected KeyGroupGenerator keygroups;
+  protected boolean keygroupsequential;
+  /**
+   * One past the last key of the load phase.
+   */
+  protected long insertend;
+  /**
+   * With deletes, the oldest record not deleted yet, otherwise null.
+   */
+  protected AtomicLong oldestlivekey;
+  /**
+   * With deletes, the request distribution over the live records.
+   */
+  private String livedistribution;
+  /**
+   * With deletes and a zipfian or latest request distribution, the rank of the record to choose among the live
+   * records.
+   */
+  private ZipfianGenerator liverank;
 
   private Measurements measurements = Measurements.getMeasurements();
+  private final MeasurementHandle verifyMeasurement = measurements.getHandle("VERIFY");
+  private final MeasurementHandle readModifyWriteMeasurement = measurements.getHandle("READ-MODIFY-WRITE");
+  private final MeasurementHandle readGroupMeasurement = measurements.getHandle("READ-GROUP");
+
+  private static final ThreadLocal<KeyBuffer> KEY_BUFFER = ThreadLocal.withInitial(() -> new KeyBuffer("user"));
 
   public static String buildKeyName(long keynum, int zeropadding, boolean orderedinserts) {
+    return new String(buildKeyBytes(keynum, zeropadding, orderedinserts), StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Build the same key as {@link #buildKeyName(long, int, boolean)} as ASCII bytes. The returned array belongs to a
+   * buffer of the calling thread and is overwritten by the next key of the same length, so it must not be retained.
+   */
+  public static byte[] buildKeyBytes(long keynum, int zeropadding, boolean orderedinserts) {
     if (!orderedinserts) {
       keynum = Utils.hash(keynum);
     }
-    String value = Long.toString(keynum);
-    int fill = zeropadding - value.length();
-    String prekey = "user";
-    for (int i = 0; i < fill; i++) {
-      prekey += '0';
-    }
-    return prekey + value;
+    return KEY_BUFFER.get().encode(keynum, zeropadding);
   }
 
   protected static NumberGenerator getFieldLengthGenerator(Properties p) throws WorkloadException {
@@ -422,6 +611,13 @@ public class CoreWorkload extends Workload {
   public void init(Properties p) throws WorkloadException {
     table = p.getProperty(TABLENAME_PROPERTY, TABLENAME_PROPERTY_DEFAULT);
 
+    String seed = p.getProperty(RANDOM_SEED_PROPERTY);
+    if (seed != null) {
+      randomseed = Long.parseLong(seed);
+      // stream 0 is for the generators that draw while being set up here
+      RandomStreams.seedCurrentThread(randomseed, 0);
+    }
+
     fieldcount =
         Long.parseLong(p.getProperty(FIELD_COUNT_PROPERTY, FIELD_COUNT_PROPERTY_DEFAULT));
     final String fieldnameprefix = p.getProperty(FIELD_NAME_PREFIX, FIELD_NAME_PREFIX_DEFAULT);
@@ -448,13 +644,14 @@ public class CoreWorkload extends Workload {
     long insertstart =
         Long.parseLong(p.getProperty(INSERT_START_PROPERTY, INSERT_START_PROPERTY_DEFAULT));
     long insertcount=
-        Integer.parseInt(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
+        Long.parseLong(p.getProperty(INSERT_COUNT_PROPERTY, String.valueOf(recordcount - insertstart)));
     // Confirm valid values for insertstart and insertcount in relation to recordcount
     if (recordcount < (insertstart + insertcount)) {
       System.err.println("Invalid combination of insertstart, insertcount and recordcount.");
       System.err.println("recordcount must be bigger than insertstart + insertcount.");
       System.exit(-1);
     }
+    insertend = insertstart + insertcount;
     zeropadding =
         Integer.parseInt(p.getProperty(ZERO_PADDING_PROPERTY, ZERO_PADDING_PROPERTY_DEFAULT));
 
@@ -475,9 +672,20 @@ public class CoreWorkload extends Workload {
       System.err.println("Must have constant field size to check data integrity.");
       System.exit(-1);
     }
+    // Asynchronous operations complete after doTransaction returns, so results can't be verified.
+    if (dataintegrity && maxInFlight(p) > 1) {
+      System.err.println("Can't check data integrity with more than one operation in flight.");
+      System.exit(-1);
+    }
+    // nor can an update wait for the read it modifies
+    if (maxInFlight(p) > 1 && Double.parseDouble(p.getProperty(
+        READMODIFYWRITE_PROPORTION_PROPERTY, READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT)) > 0) {
+      throw new WorkloadException("Can't read-modify-write with more than one operation in flight.");
+    }
     if (dataintegrity) {
       System.out.println("Data integrity is enabled.");
     }
+    initValueGenerator(p);
 
     if (p.getProperty(INSERT_ORDER_PROPERTY, INSERT_ORDER_PROPERTY_DEFAULT).compareTo("hashed") == 0) {
       orderedinserts = false;
@@ -487,10 +695,43 @@ public class CoreWorkload extends Workload {
 
     keysequence = new CounterGenerator(insertstart);
     operationchooser = createOperationGenerator(p);
+    operations = new Operation[operationchooser.size()];
+    for (int i = 0; i < operations.length; i++) {
+      operations[i] = Operation.valueOf(operationchooser.getValue(i));
+    }
+
+    transactioninsertkeysequence = new AcknowledgedCounterGenerator(recordcount,
+        Integer.parseInt(p.getProperty(INSERT_WINDOW_SIZE_PROPERTY, INSERT_WINDOW_SIZE_PROPERTY_DEFAULT)));
+    keychooser = createKeyChooser(p, requestdistrib, insertstart, insertcount);
+
+    fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
 
-    transactioninsertkeysequence = new AcknowledgedCounterGenerator(recordcount);
+    if (scanlengthdistrib.compareTo("uniform") == 0) {
+      scanlength = new UniformLongGenerator(minscanlength, maxscanlength);
+    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
+      scanlength = new ZipfianGenerator(minscanlength, maxscanlength);
+    } else {
+      throw new WorkloadException(
+          "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
+    }
+
+    insertionRetryLimit = Integer.parseInt(p.getProperty(
+        INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
+    insertionRetryInterval = Integer.parseInt(p.getProperty(
+        INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+
+    initBatchSizes(p);
+    initKeyGroups(p, insertstart);
+    initDeletes(p, requestdistrib, insertstart);
+  }
+
+  /**
+   * Creates the generator that chooses the keys of operations for the request distribution.
+   */
+  private NumberGenerator createKeyChooser(Properties p, String requestdistrib, long insertstart, long insertcount)
+      throws WorkloadException {
     if (requestdistrib.compareTo("uniform") == 0) {
-      keychooser = new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
+      return new UniformLongGenerator(insertstart, insertstart + insertcount - 1);
     } else if (requestdistrib.compareTo("exponential") == 0) {
       double percentile = Double.parseDouble(p.getProperty(
           ExponentialGenerator.EXPONENTIAL_PERCENTILE_PROPERTY,
@@ -498,9 +739,9 @@ public class CoreWorkload extends Workload {
       double frac = Double.parseDouble(p.getProperty(
           ExponentialGenerator.EXPONENTIAL_FRAC_PROPERTY,
           ExponentialGenerator.EXPONENTIAL_FRAC_DEFAULT));
-      keychooser = new ExponentialGenerator(percentile, recordcount * frac);
+      return new ExponentialGenerator(percentile, recordcount * frac);
     } else if (requestdistrib.compareTo("sequential") == 0) {
-      keychooser = new SequentialGenerator(insertstart, insertstart + insertcount - 1);
+      return new SequentialGenerator(insertstart, insertstart + insertcount - 1);
     } else if (requestdistrib.compareTo("zipfian") == 0) {
       // it does this by generating a random "next key" in part by taking the modulus over the
       // number of keys.
@@ -511,44 +752,150 @@ public class CoreWorkload extends Workload {
       // plus the number of predicted keys as the total keyspace. then, if the generator picks a key
       // that hasn't been inserted yet, will just ignore it and pick another key. this way, the size of
       // the keyspace doesn't change from the perspective of the scrambled zipfian generator
-      final double insertproportion = Double.parseDouble(
-          p.getProperty(INSERT_PROPORTION_PROPERTY, INSERT_PROPORTION_PROPERTY_DEFAULT));
-      int opcount = Integer.parseInt(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
-      int expectednewkeys = (int) ((opcount) * insertproportion * 2.0); // 2 is fudge factor
-
-      keychooser = new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectednewkeys);
+      return new ScrambledZipfianGenerator(insertstart, insertstart + insertcount + expectedNewKeys(p));
     } else if (requestdistrib.compareTo("latest") == 0) {
-      keychooser = new SkewedLatestGenerator(transactioninsertkeysequence);
+      return new SkewedLatestGenerator(transactioninsertkeysequence);
     } else if (requestdistrib.equals("hotspot")) {
       double hotsetfraction =
           Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
       double hotopnfraction =
           Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
-      keychooser = new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
+      return new HotspotIntegerGenerator(insertstart, insertstart + insertcount - 1,
           hotsetfraction, hotopnfraction);
+    } else if (requestdistrib.equals("movingzipfian")) {
+      // like zipfian, the key space includes the keys expected to be inserted, which are skipped until they are
+      return createMovingKeyChooser(p, requestdistrib, insertstart, insertstart + insertcount + expectedNewKeys(p));
+    } else if (requestdistrib.equals("movinghotspot")) {
+      return createMovingKeyChooser(p, requestdistrib, insertstart, insertstart + insertcount - 1);
     } else {
       throw new WorkloadException("Unknown request distribution \"" + requestdistrib + "\"");
     }
+  }
 
-    fieldchooser = new UniformLongGenerator(0, fieldcount - 1);
+  /**
+   * @return The number of keys the transactions are expected to insert, with a fudge factor of 2.
+   */
+  private static long expectedNewKeys(Properties p) {
+    final double insertproportion = Double.parseDouble(
+        p.getProperty(INSERT_PROPORTION_PROPERTY, INSERT_PROPORTION_PROPERTY_DEFAULT));
+    long opcount = Long.parseLong(p.getProperty(Client.OPERATION_COUNT_PROPERTY));
+    return (long) ((opcount) * insertproportion * 2.0);
+  }
 
-    if (scanlengthdistrib.compareTo("uniform") == 0) {
-      scanlength = new UniformLongGenerator(minscanlength, maxscanlength);
-    } else if (scanlengthdistrib.compareTo("zipfian") == 0) {
-      scanlength = new ZipfianGenerator(minscanlength, maxscanlength);
-    } else {
-      throw new WorkloadException(
-          "Distribution \"" + scanlengthdistrib + "\" not allowed for scan length");
+  /**
+   * Creates the key chooser of a request distribution whose hot set moves over time: "movingzipfian" slides the
+   * popular items of a zipfian distribution across the key space, "movinghotspot" relocates the hot set of a
+   * hotspot distribution at random every interval.
+   */
+  private static NumberGenerator createMovingKeyChooser(Properties p, String requestdistrib, long min, long max) {
+    long interval = TimeUnit.MILLISECONDS.toNanos(
+        Long.parseLong(p.getProperty(HOTSPOT_MOVE_INTERVAL, HOTSPOT_MOVE_INTERVAL_DEFAULT)));
+    if (requestdistrib.equals("movingzipfian")) {
+      double fraction = Double.parseDouble(p.getProperty(HOTSPOT_MOVE_FRACTION, HOTSPOT_MOVE_FRACTION_DEFAULT));
+      return new MovingKeyGenerator(new ZipfianGenerator(min, max), min, max,
+          MovingKeyGenerator.Movement.SLIDE, interval, fraction);
     }
+    double hotsetfraction =
+        Double.parseDouble(p.getProperty(HOTSPOT_DATA_FRACTION, HOTSPOT_DATA_FRACTION_DEFAULT));
+    double hotopnfraction =
+        Double.parseDouble(p.getProperty(HOTSPOT_OPN_FRACTION, HOTSPOT_OPN_FRACTION_DEFAULT));
+    return new MovingKeyGenerator(new HotspotIntegerGenerator(min, max, hotsetfraction, hotopnfraction), min, max,
+        MovingKeyGenerator.Movement.JUMP, interval, 0);
+  }
 
-    insertionRetryLimit = Integer.parseInt(p.getProperty(
-        INSERTION_RETRY_LIMIT, INSERTION_RETRY_LIMIT_DEFAULT));
-    insertionRetryInterval = Integer.parseInt(p.getProperty(
-        INSERTION_RETRY_INTERVAL, INSERTION_RETRY_INTERVAL_DEFAULT));
+  private void initBatchSizes(Properties p) throws WorkloadException {
+    readbatchsize = Integer.parseInt(p.getProperty(READ_BATCH_SIZE_PROPERTY, READ_BATCH_SIZE_PROPERTY_DEFAULT));
+    updatebatchsize = Integer.parseInt(p.getProperty(UPDATE_BATCH_SIZE_PROPERTY, UPDATE_BATCH_SIZE_PROPERTY_DEFAULT));
+    insertbatchsize = Integer.parseInt(p.getProperty(INSERT_BATCH_SIZE_PROPERTY, INSERT_BATCH_SIZE_PROPERTY_DEFAULT));
+    if (readbatchsize < 1 || updatebatchsize < 1 || insertbatchsize < 1) {
+      throw new WorkloadException("Batch sizes must be at least 1.");
+    }
   }
 
   /**
-   * Builds a value for a randomly chosen field.
+   * @return The maximum number of asynchronous operations in flight per client thread, see {@link DBWrapper}.
+   */
+  private static int maxInFlight(Properties p) {
+    return Integer.parseInt(p.getProperty(DBWrapper.MAX_IN_FLIGHT_PROPERTY, DBWrapper.MAX_IN_FLIGHT_PROPERTY_DEFAULT));
+  }
+
+  private void initKeyGroups(Properties p, long insertstart) throws WorkloadException {
+    int keygroupsize = Integer.parseInt(p.getProperty(KEY_GROUP_SIZE_PROPERTY, KEY_GROUP_SIZE_PROPERTY_DEFAULT));
+    if (keygroupsize < 1) {
+      throw new WorkloadException(KEY_GROUP_SIZE_PROPERTY + " must be at least 1.");
+    }
+    if (keygroupsize == 1) {
+      return;
+    }
+    if (readbatchsize > 1) {
+      throw new WorkloadException("Can't use both " + KEY_GROUP_SIZE_PROPERTY + " and " + READ_BATCH_SIZE_PROPERTY);
+    }
+    long spread = Long.parseLong(p.getProperty(KEY_GROUP_SPREAD_PROPERTY, KEY_GROUP_SPREAD_PROPERTY_DEFAULT));
+    if (spread < 0) {
+      throw new WorkloadException(KEY_GROUP_SPREAD_PROPERTY + " must not be negative.");
+    }
+    String keygroupread = p.getProperty(KEY_GROUP_READ_PROPERTY, KEY_GROUP_READ_PROPERTY_DEFAULT);
+    if (keygroupread.equals("sequential")) {
+      // asynchronous reads would complete after the group was reported
+      if (maxInFlight(p) > 1) {
+        throw new WorkloadException("Can't read key groups sequentially with more than one operation in flight.");
+      }
+      keygroupsequential = true;
+    } else if (!keygroupread.equals("batch")) {
+      throw new WorkloadException("Unknown key group read \"" + keygroupread + "\"");
+    }
+    keygroups = new KeyGroupGenerator(insertstart, keygroupsize, spread);
+  }
+
+  /**
+   * Sets up the live records for a workload with deletes.
+   */
+  private void initDeletes(Properties p, String requestdistrib, long insertstart) throws WorkloadException {
+    if (Double.parseDouble(p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT)) <= 0) {
+      return;
+    }
+    if (requestdistrib.equals("zipfian") || requestdistrib.equals("latest")) {
+      liverank = new ZipfianGenerator(Math.max(recordcount - insertstart, 1));
+      liverank.setAllowItemCountDecrease(true);
+    } else if (!requestdistrib.equals("uniform")) {
+      throw new WorkloadException("Request distribution \"" + requestdistrib + "\" isn't supported with "
+          + DELETE_PROPORTION_PROPERTY);
+    }
+    livedistribution = requestdistrib;
+    oldestlivekey = new AtomicLong(insertstart);
+  }
+
+  /**
+   * Gives the thread its own random stream if a seed is set.
+   */
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    if (randomseed != null) {
+      RandomStreams.seedCurrentThread(randomseed, mythreadid + 1);
+    }
+    return null;
+  }
+
+  /**
+   * Reads the properties that control how random field values are generated.
+   */
+  private void initValueGenerator(Properties p) throws WorkloadException {
+    String valuegenerator = p.getProperty(VALUE_GENERATOR_PROPERTY, VALUE_GENERATOR_PROPERTY_DEFAULT);
+    if (valuegenerator.equals("pool")) {
+      pooledvalues = true;
+    } else if (!valuegenerator.equals("random")) {
+      throw new WorkloadException("Unknown value generator \"" + valuegenerator + "\"");
+    }
+    valuecompressibility = Double.parseDouble(
+        p.getProperty(VALUE_COMPRESSIBILITY_PROPERTY, VALUE_COMPRESSIBILITY_PROPERTY_DEFAULT));
+    if (!(valuecompressibility > 0 && valuecompressibility <= 1)) {
+      throw new WorkloadException(VALUE_COMPRESSIBILITY_PROPERTY + " must be greater than 0 and at most 1.");
+    }
+  }
+
+  /**
+   * Builds a value for a randomly chosen field. The key is only used if dataintegrity is on,
+   * and may be null otherwise.
    */
   private HashMap<String, ByteIterator> buildSingleValue(String key) {
     HashMap<String, ByteIterator> value = new HashMap<>();
@@ -556,10 +903,10 @@ public class CoreWorkload extends Workload {
     String fieldkey = fieldnames.get(fieldchooser.nextValue().intValue());
     ByteIterator data;
     if (dataintegrity) {
-      data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
+      data = buildDeterministicValue(key, fieldkey);
     } else {
       // fill with random data
-      data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+      data = randomValue();
     }
     value.put(fieldkey, data);
 
@@ -567,7 +914,7 @@ public class CoreWorkload extends Workload {
   }
 
   /**
-   * Builds values for all fields.
+   * Builds values for all fields. The key is only used if dataintegrity is on, and may be null otherwise.
    */
   private HashMap<String, ByteIterator> buildValues(String key) {
     HashMap<String, ByteIterator> values = new HashMap<>();
@@ -575,32 +922,29 @@ public class CoreWorkload extends Workload {
     for (String fieldkey : fieldnames) {
       ByteIterator data;
       if (dataintegrity) {
-        data = new StringByteIterator(buildDeterministicValue(key, fieldkey));
+        data = buildDeterministicValue(key, fieldkey);
       } else {
         // fill with random data
-        data = new RandomByteIterator(fieldlengthgenerator.nextValue().longValue());
+        data = randomValue();
       }
       values.put(fieldkey, data);
     }
     return values;
   }
 
+  private ByteIterator randomValue() {
+    long len = fieldlengthgenerator.nextValue().longValue();
+    if (valuecompressibility < 1) {
+      return new CompressibleByteIterator(len, valuecompressibility);
+    }
+    return pooledvalues ? new PooledRandomByteIterator(len) : new RandomByteIterator(len);
+  }
+
   /**
    * Build a deterministic value given the key information.
    */
-  private String buildDeterministicValue(String key, String fieldkey) {
-    int size = fieldlengthgenerator.nextValue().intValue();
-    StringBuilder sb = new StringBuilder(size);
-    sb.append(key);
-    sb.append(':');
-    sb.append(fieldkey);
-    while (sb.length() < size) {
-      sb.append(':');
-      sb.append(sb.toString().hashCode());
-    }
-    sb.setLength(size);
-
-    return sb.toString();
+  private DeterministicByteIterator buildDeterministicValue(String key, String fieldkey) {
+    return new DeterministicByteIterator(key, fieldkey, fieldlengthgenerator.nextValue().longValue());
   }
 
   /**
@@ -611,14 +955,49 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doInsert(DB db, Object threadstate) {
-    int keynum = keysequence.nextValue().intValue();
+    if (insertbatchsize > 1) {
+      return doInsertBatch(db);
+    }
+    long keynum = keysequence.nextValue().longValue();
+    if (!dataintegrity) {
+      byte[] dbkey = CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts);
+      HashMap<String, ByteIterator> values = buildValues(null);
+      return insertWithRetries(() -> db.insert(table, dbkey, values));
+    }
     String dbkey = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
     HashMap<String, ByteIterator> values = buildValues(dbkey);
 
+    return insertWithRetries(() -> db.insert(table, dbkey, values));
+  }
+
+  /**
+   * Inserts the next insertbatchsize records of the load phase with one batch call.
+   *
+   * @return false once all records of the load phase have been claimed, or if the batch failed.
+   */
+  private boolean doInsertBatch(DB db) {
+    List<String> keys = new ArrayList<>(insertbatchsize);
+    List<Map<String, ByteIterator>> values = new ArrayList<>(insertbatchsize);
+    for (int i = 0; i < insertbatchsize; i++) {
+      long keynum = keysequence.nextValue().longValue();
+      if (keynum >= insertend) {
+        break;
+      }
+      String dbkey = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+      keys.add(dbkey);
+      values.add(buildValues(dbkey));
+    }
+    if (keys.isEmpty()) {
+      return false;
+    }
+    return insertWithRetries(() -> db.batchInsert(table, keys, values));
+  }
+
+  private boolean insertWithRetries(Supplier<Status> insertion) {
     Status status;
     int numOfRetries = 0;
     do {
-      status = db.insert(table, dbkey, values);
+      status = insertion.get();
       if (null != status && status.isOk()) {
         break;
       }
@@ -629,7 +1008,7 @@ public class CoreWorkload extends Workload {
         System.err.println("Retrying insertion, retry count: " + numOfRetries);
         try {
           // Sleep for a random number between [0.8, 1.2)*insertionRetryInterval.
-          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * Math.random()));
+          int sleepTime = (int) (1000 * insertionRetryInterval * (0.8 + 0.4 * RandomStreams.current().nextDouble()));
           Thread.sleep(sleepTime);
         } catch (InterruptedException e) {
           break;
@@ -654,24 +1033,27 @@ public class CoreWorkload extends Workload {
    */
   @Override
   public boolean doTransaction(DB db, Object threadstate) {
-    String operation = operationchooser.nextString();
-    if(operation == null) {
+    int index = operationchooser.nextIndex();
+    if (index < 0) {
       return false;
     }
 
-    switch (operation) {
-    case "READ":
+    switch (operations[index]) {
+    case READ:
       doTransactionRead(db);
       break;
-    case "UPDATE":
+    case UPDATE:
       doTransactionUpdate(db);
       break;
-    case "INSERT":
+    case INSERT:
       doTransactionInsert(db);
       break;
-    case "SCAN":
+    case SCAN:
       doTransactionScan(db);
       break;
+    case DELETE:
+      doTransactionDelete(db);
+      break;
     default:
       doTransactionReadModifyWrite(db);
     }
@@ -691,7 +1073,7 @@ public class CoreWorkload extends Workload {
     long startTime = System.nanoTime();
     if (!cells.isEmpty()) {
       for (Map.Entry<String, ByteIterator> entry : cells.entrySet()) {
-        if (!entry.getValue().toString().equals(buildDeterministicValue(key, entry.getKey()))) {
+        if (!buildDeterministicValue(key, entry.getKey()).contentEquals(entry.getValue())) {
           verifyStatus = Status.UNEXPECTED_STATE;
           break;
         }
@@ -701,30 +1083,142 @@ public class CoreWorkload extends Workload {
       verifyStatus = Status.ERROR;
     }
     long endTime = System.nanoTime();
-    measurements.measure("VERIFY", (int) (endTime - startTime) / 1000);
-    measurements.reportStatus("VERIFY", verifyStatus);
+    verifyMeasurement.measure((int) ((endTime - startTime) / 1000));
+    verifyMeasurement.reportStatus(verifyStatus);
   }
 
   long nextKeynum() {
+    if (oldestlivekey != null) {
+      return nextLiveKeynum();
+    }
     long keynum;
     if (keychooser instanceof ExponentialGenerator) {
       do {
-        keynum = transactioninsertkeysequence.lastValue() - keychooser.nextValue().intValue();
+        keynum = transactioninsertkeysequence.lastValue() - keychooser.nextValue().longValue();
       } while (keynum < 0);
     } else {
       do {
-        keynum = keychooser.nextValue().intValue();
+        keynum = keychooser.nextValue().longValue();
       } while (keynum > transactioninsertkeysequence.lastValue());
     }
     return keynum;
   }
 
+  /**
+   * Chooses one of the live records, from the oldest one not deleted yet to the newest one inserted. With the
+   * zipfian distribution the popular records are scattered over the live records by hashing their rank, like
+   * {@link ScrambledZipfianGenerator} does, with latest the newest one is the most popular. The zipfian
+   * distribution follows the number of live records as it goes up and down.
+   */
+  private long nextLiveKeynum() {
+    long oldest = oldestlivekey.get();
+    long newest = transactioninsertkeysequence.lastValue();
+    // with every record deleted, choose the next one to be inserted, which isn't there
+    long live = Math.max(newest - oldest + 1, 1);
+    switch (livedistribution) {
+    case "zipfian":
+      // the live record congruent to the hashed rank, so that a record keeps its popularity while the oldest
+      // ones are deleted, as long as the number of live records stays the same
+      return oldest + Math.floorMod(Utils.fnvhash64(liverank.nextLong(live)) - oldest, live);
+    case "latest":
+      return oldest + live - 1 - liverank.nextLong(live);
+    default:
+      return oldest + Math.floorMod(RandomStreams.current().nextLong(), live);
+    }
+  }
+
   public void doTransactionRead(DB db) {
+    if (keygroups != null) {
+      doTransactionGroupRead(db);
+      return;
+    }
+    if (readbatchsize > 1) {
+      doTransactionBatchRead(db);
+      return;
+    }
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+    HashSet<String> fields = readFields();
+
+    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+    if (dataintegrity) {
+      String keyname = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+      db.read(table, keyname, fields, cells);
+      verifyRow(keyname, cells);
+    } else {
+      db.read(table, CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts), fields, cells);
+    }
+  }
+
+  private void doTransactionBatchRead(DB db) {
+    List<String> keys = new ArrayList<>(readbatchsize);
+    for (int i = 0; i < readbatchsize; i++) {
+      keys.add(CoreWorkload.buildKeyName(nextKeynum(), zeropadding, orderedinserts));
+    }
 
+    List<Map<String, ByteIterator>> results = new ArrayList<>(readbatchsize);
+    db.batchRead(table, keys, readFields(), results);
+    verifyRows(keys, results);
+  }
+
+  /**
+   * Verifies the results of a batch read if data integrity is enabled.
+   */
+  private void verifyRows(List<String> keys, List<Map<String, ByteIterator>> results) {
+    if (dataintegrity) {
+      for (int i = 0; i < keys.size(); i++) {
+        HashMap<String, ByteIterator> cells = new HashMap<>();
+        if (i < results.size()) {
+          cells.putAll(results.get(i));
+        }
+        verifyRow(keys.get(i), cells);
+      }
+    }
+  }
+
+  /**
+   * Reads the group of correlated keys of a chosen key.
+   */
+  private void doTransactionGroupRead(DB db) {
+    long[] keynums = keygroups.group(nextKeynum(), transactioninsertkeysequence.lastValue());
+    HashSet<String> fields = readFields();
+    if (!keygroupsequential) {
+      List<String> keys = new ArrayList<>(keynums.length);
+      for (long keynum : keynums) {
+        keys.add(CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts));
+      }
+      List<Map<String, ByteIterator>> results = new ArrayList<>(keynums.length);
+      db.batchRead(table, keys, fields, results);
+      verifyRows(keys, results);
+      return;
+    }
+
+    List<String> keys = dataintegrity ? new ArrayList<>(keynums.length) : null;
+    List<Map<String, ByteIterator>> results = dataintegrity ? new ArrayList<>(keynums.length) : null;
+    long ist = measurements.getIntendedStartTimeNs();
+    long st = System.nanoTime();
+    for (long keynum : keynums) {
+      HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
+      if (dataintegrity) {
+        String keyname = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+        db.read(table, keyname, fields, cells);
+        keys.add(keyname);
+        results.add(cells);
+      } else {
+        db.read(table, CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts), fields, cells);
+      }
+    }
+    long en = System.nanoTime();
+    verifyRows(keys, results);
+    readGroupMeasurement.measure((int) ((en - st) / 1000));
+    readGroupMeasurement.measureIntended((int) ((en - ist) / 1000));
+  }
+
+  /**
+   * @return The fields to read, or null for all fields.
+   */
+  private HashSet<String> readFields() {
     HashSet<String> fields = null;
 
     if (!readallfields) {
@@ -737,20 +1231,14 @@ public class CoreWorkload extends Workload {
       // pass the full field list if dataintegrity is on for verification
       fields = new HashSet<String>(fieldnames);
     }
-
-    HashMap<String, ByteIterator> cells = new HashMap<String, ByteIterator>();
-    db.read(table, keyname, fields, cells);
-
-    if (dataintegrity) {
-      verifyRow(keyname, cells);
-    }
+    return fields;
   }
 
   public void doTransactionReadModifyWrite(DB db) {
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+    String keyname = dataintegrity ? CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts) : null;
 
     HashSet<String> fields = null;
 
@@ -779,9 +1267,16 @@ public class CoreWorkload extends Workload {
 
     long ist = measurements.getIntendedStartTimeNs();
     long st = System.nanoTime();
-    db.read(table, keyname, fields, cells);
+    if (dataintegrity) {
+      db.read(table, keyname, fields, cells);
+
+      db.update(table, keyname, values);
+    } else {
+      byte[] dbkey = CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts);
+      db.read(table, dbkey, fields, cells);
 
-    db.update(table, keyname, values);
+      db.update(table, dbkey, values);
+    }
 
     long en = System.nanoTime();
 
@@ -789,8 +1284,8 @@ public class CoreWorkload extends Workload {
       verifyRow(keyname, cells);
     }
 
-    measurements.measure("READ-MODIFY-WRITE", (int) ((en - st) / 1000));
-    measurements.measureIntended("READ-MODIFY-WRITE", (int) ((en - ist) / 1000));
+    readModifyWriteMeasurement.measure((int) ((en - st) / 1000));
+    readModifyWriteMeasurement.measureIntended((int) ((en - ist) / 1000));
   }
 
   public void doTransactionScan(DB db) {
@@ -816,10 +1311,14 @@ public class CoreWorkload extends Workload {
   }
 
   public void doTransactionUpdate(DB db) {
+    if (updatebatchsize > 1) {
+      doTransactionBatchUpdate(db);
+      return;
+    }
     // choose a random key
     long keynum = nextKeynum();
 
-    String keyname = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+    String keyname = dataintegrity ? CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts) : null;
 
     HashMap<String, ByteIterator> values;
 
@@ -831,18 +1330,60 @@ public class CoreWorkload extends Workload {
       values = buildSingleValue(keyname);
     }
 
-    db.update(table, keyname, values);
+    if (dataintegrity) {
+      db.update(table, keyname, values);
+    } else {
+      db.update(table, CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts), values);
+    }
+  }
+
+  private void doTransactionBatchUpdate(DB db) {
+    List<String> keys = new ArrayList<>(updatebatchsize);
+    List<Map<String, ByteIterator>> values = new ArrayList<>(updatebatchsize);
+    for (int i = 0; i < updatebatchsize; i++) {
+      String keyname = CoreWorkload.buildKeyName(nextKeynum(), zeropadding, orderedinserts);
+      keys.add(keyname);
+      values.add(writeallfields ? buildValues(keyname) : buildSingleValue(keyname));
+    }
+
+    db.batchUpdate(table, keys, values);
+  }
+
+  /**
+   * Deletes the oldest live record, if there is one.
+   */
+  public void doTransactionDelete(DB db) {
+    long keynum;
+    do {
+      keynum = oldestlivekey.get();
+      if (keynum > transactioninsertkeysequence.lastValue()) {
+        return;
+      }
+    } while (!oldestlivekey.compareAndSet(keynum, keynum + 1));
+    db.delete(table, CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts));
   }
 
   public void doTransactionInsert(DB db) {
     // choose the next key
     long keynum = transactioninsertkeysequence.nextValue();
 
-    try {
+    if (db instanceof DBWrapper && ((DBWrapper) db).isAsync()) {
+      // the insert completes after this returns, and other operations may only choose the key once it did
       String dbkey = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
+      ((DBWrapper) db).insertAsync(table, dbkey, buildValues(dataintegrity ? dbkey : null))
+          .whenComplete((res, ex) -> transactioninsertkeysequence.acknowledge(keynum));
+      return;
+    }
+
+    try {
+      if (dataintegrity) {
+        String dbkey = CoreWorkload.buildKeyName(keynum, zeropadding, orderedinserts);
 
-      HashMap<String, ByteIterator> values = buildValues(dbkey);
-      db.insert(table, dbkey, values);
+        HashMap<String, ByteIterator> values = buildValues(dbkey);
+        db.insert(table, dbkey, values);
+      } else {
+        db.insert(table, CoreWorkload.buildKeyBytes(keynum, zeropadding, orderedinserts), buildValues(null));
+      }
     } finally {
       transactioninsertkeysequence.acknowledge(keynum);
     }
@@ -852,7 +1393,8 @@ public class CoreWorkload extends Workload {
    * Creates a weighted discrete values with database operations for a workload to perform.
    * Weights/proportions are read from the properties list and defaults are used
    * when values are not configured.
-   * Current operations are "READ", "UPDATE", "INSERT", "SCAN" and "READMODIFYWRITE".
+   * Current operations are "READ", "UPDATE", "INSERT", "SCAN", "READMODIFYWRITE" and "DELETE", the
+   * names of {@link Operation}.
    *
    * @param p The properties list to pull weights from.
    * @return A generator that can be used to determine the next operation to perform.
@@ -872,6 +1414,8 @@ public class CoreWorkload extends Workload {
         p.getProperty(SCAN_PROPORTION_PROPERTY, SCAN_PROPORTION_PROPERTY_DEFAULT));
     final double readmodifywriteproportion = Double.parseDouble(p.getProperty(
         READMODIFYWRITE_PROPORTION_PROPERTY, READMODIFYWRITE_PROPORTION_PROPERTY_DEFAULT));
+    final double deleteproportion = Double.parseDouble(
+        p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT));
 
     final DiscreteGenerator operationchooser = new DiscreteGenerator();
     if (readproportion > 0) {
@@ -893,6 +1437,10 @@ public class CoreWorkload extends Workload {
     if (readmodifywriteproportion > 0) {
       operationchooser.addValue(readmodifywriteproportion, "READMODIFYWRITE");
     }
+
+    if (deleteproportion > 0) {
+      operationchooser.addValue(deleteproportion, "DELETE");
+    }
     return operationchooser;
   }
 }
@@ -41,17 +41,6 @@ import site.ycsb.generator.UniformLongGenerator;
  */
 public class RestWorkload extends CoreWorkload {
 
-  /**
-   * The name of the property for the proportion of transactions that are
-   * delete.
-   */
-  public static final String DELETE_PROPORTION_PROPERTY = "deleteproportion";
-
-  /**
-   * The default proportion of transactions that are delete.
-   */
-  public static final String DELETE_PROPORTION_PROPERTY_DEFAULT = "0.00";
-
   /**
    * The name of the property for the file that holds the field length size for insert operations.
    */
@@ -148,15 +137,7 @@ public class RestWorkload extends CoreWorkload {
   }
 
   public static DiscreteGenerator createOperationGenerator(final Properties p) {
-    // Re-using CoreWorkload method.
-    final DiscreteGenerator operationChooser = CoreWorkload.createOperationGenerator(p);
-    // Needs special handling for delete operations not supported in CoreWorkload.
-    double deleteproportion = Double
-        .parseDouble(p.getProperty(DELETE_PROPORTION_PROPERTY, DELETE_PROPORTION_PROPERTY_DEFAULT));
-    if (deleteproportion > 0) {
-      operationChooser.addValue(deleteproportion, "DELETE");
-    }
-    return operationChooser;
+    return CoreWorkload.createOperationGenerator(p);
   }
 
   private static NumberGenerator getKeyChooser(String requestDistrib, int recordCount, double zipfContant,
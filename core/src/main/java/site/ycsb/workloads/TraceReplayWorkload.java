@@ -0,0 +1,222 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.workloads;
+
+import site.ycsb.ByteIterator;
+import site.ycsb.DB;
+import site.ycsb.RandomByteIterator;
+import site.ycsb.Workload;
+import site.ycsb.WorkloadException;
+import site.ycsb.generator.BinaryTrace;
+import site.ycsb.generator.TraceGenerator;
+import site.ycsb.measurements.Measurements;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Vector;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A workload that replays a {@link BinaryTrace}, e.g. one converted from a production access log with
+ * {@link site.ycsb.generator.TraceConverter}.
+ *
+ * The trace is memory-mapped and shared by all client threads. Thread t of n replays the records t, t + n, t + 2n,
+ * and so on, without locking; a thread stops when it runs out of records, so set operationcount to 0 (or to the
+ * number of records) to replay the whole trace. The key of a record with key id i is "user" followed by i, padded
+ * to zeropadding digits, as the keys of the CoreWorkload with insertorder=ordered. Inserts and updates write one
+ * field of the recorded value size, or of fieldlength bytes if the trace has no size. Both the load and the
+ * transaction phase replay the trace.
+ *
+ * Properties to control the replay:
+ * <ul>
+ * <li><b>tracefile</b>: the binary trace (required)</li>
+ * <li><b>tracepacing</b>: "none" to replay as fast as possible, or "recorded" to issue each operation at its
+ * recorded time after the start of the replay (default "none")</li>
+ * <li><b>tracespeedup</b>: with recorded pacing, how many times faster than recorded to replay (default 1)</li>
+ * </ul>
+ * With recorded pacing, the recorded times are the intended start times of the operations, so set
+ * measurement.interval to intended or both to include the delay of operations that fall behind.
+ */
+public class TraceReplayWorkload extends Workload {
+  /**
+   * The name of the property for the binary trace file.
+   */
+  public static final String TRACE_FILE_PROPERTY = "tracefile";
+
+  /**
+   * The name of the property for the pacing of the replay, "none" or "recorded".
+   */
+  public static final String TRACE_PACING_PROPERTY = "tracepacing";
+
+  /**
+   * The default pacing.
+   */
+  public static final String TRACE_PACING_PROPERTY_DEFAULT = "none";
+
+  /**
+   * The name of the property for the speedup of a replay with recorded pacing.
+   */
+  public static final String TRACE_SPEEDUP_PROPERTY = "tracespeedup";
+
+  /**
+   * The default speedup.
+   */
+  public static final String TRACE_SPEEDUP_PROPERTY_DEFAULT = "1.0";
+
+  private BinaryTrace trace;
+  private String table;
+  private int zeropadding;
+  private String fieldname;
+  private int fieldlength;
+  private boolean paced;
+  private double speedup;
+  private long firsttimestamp;
+  /** The nanoTime the replay started at, or 0 until the first operation. */
+  private final AtomicLong replaystart = new AtomicLong();
+  private Measurements measurements;
+
+  @Override
+  public void init(Properties p) throws WorkloadException {
+    String file = p.getProperty(TRACE_FILE_PROPERTY);
+    if (file == null) {
+      throw new WorkloadException("Missing property " + TRACE_FILE_PROPERTY);
+    }
+    try {
+      trace = BinaryTrace.open(Paths.get(file));
+    } catch (IOException e) {
+      throw new WorkloadException("Couldn't open trace " + file, e);
+    }
+
+    table = p.getProperty(CoreWorkload.TABLENAME_PROPERTY, CoreWorkload.TABLENAME_PROPERTY_DEFAULT);
+    zeropadding = Integer.parseInt(
+        p.getProperty(CoreWorkload.ZERO_PADDING_PROPERTY, CoreWorkload.ZERO_PADDING_PROPERTY_DEFAULT));
+    fieldname = p.getProperty(CoreWorkload.FIELD_NAME_PREFIX, CoreWorkload.FIELD_NAME_PREFIX_DEFAULT) + "0";
+    fieldlength = Integer.parseInt(
+        p.getProperty(CoreWorkload.FIELD_LENGTH_PROPERTY, CoreWorkload.FIELD_LENGTH_PROPERTY_DEFAULT));
+
+    String pacing = p.getProperty(TRACE_PACING_PROPERTY, TRACE_PACING_PROPERTY_DEFAULT);
+    if (pacing.equals("recorded")) {
+      if (!trace.hasTimestamps()) {
+        throw new WorkloadException("Trace " + file + " has no timestamps to pace the replay with");
+      }
+      paced = true;
+    } else if (!pacing.equals("none")) {
+      throw new WorkloadException("Unknown trace pacing \"" + pacing + "\"");
+    }
+    speedup = Double.parseDouble(p.getProperty(TRACE_SPEEDUP_PROPERTY, TRACE_SPEEDUP_PROPERTY_DEFAULT));
+    if (!(speedup > 0)) {
+      throw new WorkloadException(TRACE_SPEEDUP_PROPERTY + " must be positive.");
+    }
+    firsttimestamp = trace.size() > 0 ? trace.timestamp(0) : 0;
+    measurements = Measurements.getMeasurements();
+  }
+
+  /**
+   * @return The generator of the records this thread replays.
+   */
+  @Override
+  public Object initThread(Properties p, int mythreadid, int threadcount) throws WorkloadException {
+    return new TraceGenerator(trace, mythreadid, threadcount);
+  }
+
+  @Override
+  public boolean doInsert(DB db, Object threadstate) {
+    return doTransaction(db, threadstate);
+  }
+
+  @Override
+  public boolean doTransaction(DB db, Object threadstate) {
+    long record = ((TraceGenerator) threadstate).nextIndex();
+    if (record < 0) {
+      return false;
+    }
+    if (paced) {
+      waitUntilRecorded(record);
+    }
+
+    long key = trace.key(record);
+    int size = trace.valueSize(record);
+    switch (trace.operation(record)) {
+    case BinaryTrace.READ:
+      db.read(table, keyBytes(key), null, new HashMap<String, ByteIterator>());
+      break;
+    case BinaryTrace.UPDATE:
+      db.update(table, keyBytes(key), values(size));
+      break;
+    case BinaryTrace.INSERT:
+      db.insert(table, keyBytes(key), values(size));
+      break;
+    case BinaryTrace.SCAN:
+      db.scan(table, CoreWorkload.buildKeyName(key, zeropadding, true), size, null,
+          new Vector<HashMap<String, ByteIterator>>());
+      break;
+    case BinaryTrace.READMODIFYWRITE:
+      byte[] dbkey = keyBytes(key);
+      db.read(table, dbkey, null, new HashMap<String, ByteIterator>());
+      db.update(table, dbkey, values(size));
+      break;
+    case BinaryTrace.DELETE:
+      db.delete(table, keyBytes(key));
+      break;
+    default:
+      System.err.println("Skipping record " + record + " with unknown operation " + trace.operation(record));
+    }
+    return true;
+  }
+
+  /**
+   * Waits until the recorded time of a record, relative to the start of the replay, and makes it the intended start
+   * time of the operation.
+   */
+  private void waitUntilRecorded(long record) {
+    long start = replaystart.get();
+    if (start == 0) {
+      replaystart.compareAndSet(0, System.nanoTime());
+      start = replaystart.get();
+    }
+    long deadline = start + (long) ((trace.timestamp(record) - firsttimestamp) * 1000 / speedup);
+    long now = System.nanoTime();
+    while (now < deadline) {
+      LockSupport.parkNanos(deadline - now);
+      now = System.nanoTime();
+    }
+    measurements.setIntendedStartTimeNs(deadline);
+  }
+
+  private byte[] keyBytes(long key) {
+    return CoreWorkload.buildKeyBytes(key, zeropadding, true);
+  }
+
+  private HashMap<String, ByteIterator> values(int size) {
+    HashMap<String, ByteIterator> values = new HashMap<>();
+    values.put(fieldname, new RandomByteIterator(size > 0 ? size : fieldlength));
+    return values;
+  }
+
+  @Override
+  public void cleanup() throws WorkloadException {
+    try {
+      trace.close();
+    } catch (IOException e) {
+      throw new WorkloadException("Couldn't close the trace", e);
+    }
+  }
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for {@link ArrivalScheduler}.
+ */
+public class TestArrivalScheduler {
+
+  @Test
+  public void fixedArrivalsAreEvenlySpaced() {
+    ArrivalScheduler scheduler = new ArrivalScheduler(ArrivalScheduler.Process.FIXED, 1000);
+    long first = scheduler.nextArrivalNs();
+    for (int i = 1; i <= 100; i++) {
+      assertEquals(scheduler.nextArrivalNs() - first, i * 1000000L);
+    }
+  }
+
+  @Test
+  public void fixedArrivalsDoNotDriftWithFractionalInterval() {
+    ArrivalScheduler scheduler = new ArrivalScheduler(ArrivalScheduler.Process.FIXED, 3);
+    long first = scheduler.nextArrivalNs();
+    long last = first;
+    for (int i = 0; i < 3000; i++) {
+      last = scheduler.nextArrivalNs();
+    }
+    // 3000 arrivals at 3/sec take 1000 seconds, give or take a rounded nanosecond
+    assertTrue(Math.abs(last - first - 1000000000000L) <= 1);
+  }
+
+  @Test
+  public void poissonArrivalsHaveTargetRate() {
+    ArrivalScheduler scheduler = new ArrivalScheduler(ArrivalScheduler.Process.POISSON, 1000);
+    long first = scheduler.nextArrivalNs();
+    long last = first;
+    final int count = 100000;
+    for (int i = 0; i < count; i++) {
+      last = scheduler.nextArrivalNs();
+      assertTrue(last >= first);
+    }
+    double meanIntervalMs = (last - first) / 1e6 / count;
+    assertTrue(Math.abs(meanIntervalMs - 1.0) < 0.05, "mean interval " + meanIntervalMs);
+  }
+
+  @Test
+  public void seededPoissonArrivalsReplay() {
+    try {
+      assertEquals(poissonIntervals(42), poissonIntervals(42));
+    } finally {
+      RandomStreams.unseedCurrentThread();
+    }
+  }
+
+  private static List<Long> poissonIntervals(long seed) {
+    RandomStreams.seedCurrentThread(seed, 1);
+    ArrivalScheduler scheduler = new ArrivalScheduler(ArrivalScheduler.Process.POISSON, 1000);
+    List<Long> intervals = new ArrayList<>();
+    long previous = scheduler.nextArrivalNs();
+    for (int i = 0; i < 100; i++) {
+      long next = scheduler.nextArrivalNs();
+      intervals.add(next - previous);
+      previous = next;
+    }
+    return intervals;
+  }
+
+  @Test
+  public void parseProcess() {
+    assertEquals(ArrivalScheduler.parseProcess("fixed"), ArrivalScheduler.Process.FIXED);
+    assertEquals(ArrivalScheduler.parseProcess("poisson"), ArrivalScheduler.Process.POISSON);
+    assertNull(ArrivalScheduler.parseProcess("perthread"));
+  }
+}
@@ -17,6 +17,9 @@
 
 package site.ycsb;
 
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
 import org.testng.annotations.Test;
 import static org.testng.AssertJUnit.*;
 
@@ -36,4 +39,89 @@ public class TestByteIterator {
     assertFalse(itor.hasNext());
     assertEquals(0, itor.bytesLeft());
   }
+
+  @Test
+  public void testPooledRandomByteIterator() {
+    int size = PooledRandomByteIterator.POOL_SIZE + 100;
+    ByteIterator itor = new PooledRandomByteIterator(size);
+    byte[] bytes = itor.toArray();
+    assertEquals(size, bytes.length);
+    assertFalse(itor.hasNext());
+    assertEquals(0, itor.bytesLeft());
+    for (byte b : bytes) {
+      assertTrue(b >= ' ' && b <= '~');
+    }
+    // the value wraps around the pool
+    for (int i = 0; i < 100; i++) {
+      assertEquals(bytes[i], bytes[PooledRandomByteIterator.POOL_SIZE + i]);
+    }
+
+    itor.reset();
+    byte[] buf = new byte[10];
+    assertEquals(10, itor.nextBuf(buf, 3));
+    assertEquals(bytes[0], buf[3]);
+    assertEquals(bytes[7], itor.nextByte());
+  }
+
+  @Test
+  public void testCompressibleByteIterator() {
+    int size = 100000;
+    ByteIterator itor = new CompressibleByteIterator(size, 0.5);
+    byte[] bytes = itor.toArray();
+    assertEquals(size, bytes.length);
+    assertFalse(itor.hasNext());
+
+    itor.reset();
+    for (int i = 0; i < 150; i++) {
+      assertEquals(bytes[i], itor.nextByte());
+    }
+    // the second half of each piece repeats the first
+    assertEquals(bytes[10], bytes[60]);
+    assertEquals(bytes[110], bytes[160]);
+
+    // deflate also entropy codes the printable bytes, so it compresses a bit more than the target
+    double ratio = (double) deflatedLength(bytes) / size;
+    assertTrue("ratio " + ratio, ratio > 0.35 && ratio < 0.55);
+    ratio = (double) deflatedLength(new CompressibleByteIterator(size, 0.2).toArray()) / size;
+    assertTrue("ratio " + ratio, ratio > 0.12 && ratio < 0.25);
+  }
+
+  @Test
+  public void testDeterministicByteIterator() {
+    byte[] bytes = new DeterministicByteIterator("user1", "field0", 4096).toArray();
+    assertEquals(4096, bytes.length);
+    assertEquals("user1:field0:", new String(bytes, 0, 13));
+    for (byte b : bytes) {
+      assertTrue(b >= ' ' && b <= '~');
+    }
+    ByteIterator itor = new DeterministicByteIterator("user1", "field0", 4096);
+    assertTrue(Arrays.equals(bytes, itor.toArray()));
+    itor.reset();
+    assertTrue(Arrays.equals(bytes, itor.toArray()));
+    assertFalse(Arrays.equals(bytes, new DeterministicByteIterator("user1", "field1", 4096).toArray()));
+    assertFalse(Arrays.equals(bytes, new DeterministicByteIterator("user2", "field0", 4096).toArray()));
+
+    assertTrue(new DeterministicByteIterator("user1", "field0", 4096).contentEquals(
+        new ByteArrayByteIterator(bytes)));
+    assertFalse(new DeterministicByteIterator("user1", "field0", 4097).contentEquals(
+        new ByteArrayByteIterator(bytes)));
+    assertFalse(new DeterministicByteIterator("user1", "field0", 4095).contentEquals(
+        new ByteArrayByteIterator(bytes)));
+    bytes[4000]++;
+    assertFalse(new DeterministicByteIterator("user1", "field0", 4096).contentEquals(
+        new ByteArrayByteIterator(bytes)));
+  }
+
+  private static int deflatedLength(byte[] bytes) {
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    deflater.setInput(bytes);
+    deflater.finish();
+    byte[] out = new byte[bytes.length * 2];
+    int length = 0;
+    while (!deflater.finished()) {
+      length += deflater.deflate(out);
+    }
+    deflater.end();
+    return length;
+  }
 }
@@ -0,0 +1,60 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.Test;
+
+/**
+ * Test class for {@link ClientThreadFactory}.
+ */
+public class TestClientThreadFactory {
+
+  private static void assertRuns(ClientThreadFactory factory) throws InterruptedException {
+    final AtomicBoolean ran = new AtomicBoolean(false);
+    Thread t = factory.newThread(() -> ran.set(true));
+    t.start();
+    t.join();
+    assertTrue(ran.get());
+    assertFalse(t.isAlive());
+  }
+
+  @Test
+  public void platformThreads() throws Exception {
+    ClientThreadFactory factory = ClientThreadFactory.create("platform");
+    assertFalse(factory.isVirtual());
+    assertRuns(factory);
+  }
+
+  /**
+   * Virtual threads are used when the JVM has them, otherwise this falls back to platform threads.
+   */
+  @Test
+  public void virtualThreads() throws Exception {
+    assertRuns(ClientThreadFactory.create("virtual"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void unknownThreadModel() {
+    ClientThreadFactory.create("green");
+  }
+}
@@ -0,0 +1,235 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.htrace.core.HTraceConfiguration;
+import org.apache.htrace.core.Tracer;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.Measurements;
+
+/**
+ * Test class for {@link DBWrapper}.
+ */
+public class TestDBWrapper {
+
+  /**
+   * An {@link AsyncDB} whose operations only complete when the test says so.
+   */
+  static class PendingAsyncDB extends AsyncDB {
+    private final List<CompletableFuture<Status>> pending = new ArrayList<>();
+
+    synchronized void completeAll() {
+      for (CompletableFuture<Status> future : pending) {
+        future.complete(Status.OK);
+      }
+      pending.clear();
+    }
+
+    synchronized int pendingCount() {
+      return pending.size();
+    }
+
+    private synchronized CompletionStage<Status> enqueue() {
+      CompletableFuture<Status> future = new CompletableFuture<>();
+      pending.add(future);
+      return future;
+    }
+
+    @Override
+    public CompletionStage<Status> readAsync(String table, String key, Set<String> fields,
+                                             Map<String, ByteIterator> result) {
+      return enqueue();
+    }
+
+    @Override
+    public CompletionStage<Status> scanAsync(String table, String startkey, int recordcount, Set<String> fields,
+                                             Vector<HashMap<String, ByteIterator>> result) {
+      return enqueue();
+    }
+
+    @Override
+    public CompletionStage<Status> updateAsync(String table, String key, Map<String, ByteIterator> values) {
+      return enqueue();
+    }
+
+    @Override
+    public CompletionStage<Status> insertAsync(String table, String key, Map<String, ByteIterator> values) {
+      return enqueue();
+    }
+
+    @Override
+    public CompletionStage<Status> deleteAsync(String table, String key) {
+      return enqueue();
+    }
+  }
+
+  /**
+   * A {@link DB} whose operations return a preset status.
+   */
+  static class StatusDB extends DB {
+    private Status status = Status.OK;
+
+    @Override
+    public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+      return status;
+    }
+
+    @Override
+    public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                       Vector<HashMap<String, ByteIterator>> result) {
+      return status;
+    }
+
+    @Override
+    public Status update(String table, String key, Map<String, ByteIterator> values) {
+      return status;
+    }
+
+    @Override
+    public Status insert(String table, String key, Map<String, ByteIterator> values) {
+      return status;
+    }
+
+    @Override
+    public Status delete(String table, String key) {
+      return status;
+    }
+  }
+
+  private static final Tracer TRACER = new Tracer.Builder("TestDBWrapper")
+      .conf(HTraceConfiguration.EMPTY).build();
+
+  @BeforeClass
+  public static void setUp() {
+    Measurements.setProperties(new Properties());
+  }
+
+  private static DBWrapper wrap(DB db, String maxInFlight) throws DBException {
+    Properties p = new Properties();
+    p.setProperty(DBWrapper.MAX_IN_FLIGHT_PROPERTY, maxInFlight);
+    db.setProperties(p);
+    DBWrapper wrapper = new DBWrapper(db, TRACER);
+    wrapper.init();
+    return wrapper;
+  }
+
+  @Test
+  public void asyncOperationsReturnBeforeCompletion() throws Exception {
+    PendingAsyncDB db = new PendingAsyncDB();
+    DBWrapper wrapper = wrap(db, "4");
+
+    for (int i = 0; i < 4; i++) {
+      assertEquals(wrapper.delete("t", "user" + i), Status.BATCHED_OK);
+    }
+    assertEquals(db.pendingCount(), 4);
+    db.completeAll();
+    wrapper.cleanup();
+  }
+
+  @Test
+  public void asyncOperationsAreBoundedByMaxInFlight() throws Exception {
+    final PendingAsyncDB db = new PendingAsyncDB();
+    final DBWrapper wrapper = wrap(db, "2");
+    wrapper.delete("t", "user0");
+    wrapper.delete("t", "user1");
+
+    final AtomicBoolean issued = new AtomicBoolean(false);
+    Thread third = new Thread(() -> {
+      wrapper.delete("t", "user2");
+      issued.set(true);
+    });
+    third.start();
+    third.join(200);
+    assertFalse(issued.get());
+
+    db.completeAll();
+    third.join();
+    assertTrue(issued.get());
+    db.completeAll();
+    wrapper.cleanup();
+  }
+
+  @Test
+  public void asyncInsertCompletesWithTheOperation() throws Exception {
+    PendingAsyncDB db = new PendingAsyncDB();
+    DBWrapper wrapper = wrap(db, "4");
+    assertTrue(wrapper.isAsync());
+
+    CompletableFuture<Status> insert =
+        wrapper.insertAsync("t", "user0", new HashMap<String, ByteIterator>()).toCompletableFuture();
+    assertFalse(insert.isDone());
+    db.completeAll();
+    assertEquals(insert.getNow(null), Status.OK);
+    wrapper.cleanup();
+
+    DBWrapper sync = wrap(new StatusDB(), "4");
+    assertFalse(sync.isAsync());
+    assertTrue(sync.insertAsync("t", "user0", new HashMap<String, ByteIterator>()).toCompletableFuture().isDone());
+  }
+
+  @Test
+  public void asyncDBBlocksWithSingleOperationInFlight() throws Exception {
+    final PendingAsyncDB db = new PendingAsyncDB();
+    final DBWrapper wrapper = wrap(db, "1");
+    final Status[] result = new Status[1];
+    Thread caller = new Thread(() -> result[0] = wrapper.delete("t", "user0"));
+    caller.start();
+    while (db.pendingCount() == 0) {
+      Thread.sleep(1);
+    }
+    db.completeAll();
+    caller.join();
+    assertEquals(result[0], Status.OK);
+  }
+
+  @Test
+  public void failuresAreMeasuredByStatus() throws Exception {
+    StatusDB db = new StatusDB();
+    Properties p = new Properties();
+    p.setProperty("latencytrackederrors", "NOT_FOUND");
+    db.setProperties(p);
+    DBWrapper wrapper = new DBWrapper(db, TRACER);
+    wrapper.init();
+
+    db.status = Status.NOT_FOUND;
+    assertEquals(wrapper.update("t", "user0", new HashMap<String, ByteIterator>()), Status.NOT_FOUND);
+    db.status = new Status("CUSTOM", "A binding specific failure.");
+    wrapper.update("t", "user0", new HashMap<String, ByteIterator>());
+
+    String summary = Measurements.getMeasurements().getSummary();
+    assertTrue(summary.contains("[UPDATE-NOT_FOUND: Count=1,"), summary);
+    assertTrue(summary.contains("[UPDATE-FAILED: Count=1,"), summary);
+  }
+}
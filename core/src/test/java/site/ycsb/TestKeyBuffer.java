@@ -0,0 +1,69 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.Test;
+
+import site.ycsb.workloads.CoreWorkload;
+
+public class TestKeyBuffer {
+
+  @Test
+  public void encodesPaddedKeys() {
+    KeyBuffer buffer = new KeyBuffer("user");
+    assertEquals(string(buffer.encode(5, 8)), "user00000005");
+    assertEquals(string(buffer.encode(0, 1)), "user0");
+    assertEquals(string(buffer.encode(123456789, 3)), "user123456789");
+    assertEquals(string(buffer.encode(Long.MAX_VALUE, 1)), "user" + Long.MAX_VALUE);
+  }
+
+  @Test
+  public void reusesBuffersOfTheSameLength() {
+    KeyBuffer buffer = new KeyBuffer("user");
+    byte[] first = buffer.encode(12, 1);
+    byte[] second = buffer.encode(34, 1);
+    assertSame(second, first);
+    assertEquals(string(second), "user34");
+    assertEquals(string(buffer.encode(12, 3)), "user012");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rejectsNegativeKeys() {
+    new KeyBuffer("user").encode(-1, 1);
+  }
+
+  @Test
+  public void keyNamesMatchTheirBytes() {
+    for (long keynum = 0; keynum < 1000; keynum += 7) {
+      assertEquals(CoreWorkload.buildKeyName(keynum, 1, true), "user" + keynum);
+      long hashed = Utils.hash(keynum);
+      assertEquals(CoreWorkload.buildKeyName(keynum, 25, false),
+          "user" + String.format("%025d", hashed));
+      assertEquals(string(CoreWorkload.buildKeyBytes(keynum, 25, false)), "user" + String.format("%025d", hashed));
+    }
+  }
+
+  private static String string(byte[] key) {
+    return new String(key, StandardCharsets.US_ASCII);
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.OneMeasurement;
+import site.ycsb.measurements.OneMeasurementHdrHistogram;
+import site.ycsb.measurements.OneMeasurementHistogram;
+
+public class TestMetricsServer {
+
+  @Test
+  public void servesTheLastPublishedInterval() throws Exception {
+    Properties props = new Properties();
+    OneMeasurement read = new OneMeasurementHdrHistogram("READ", props);
+    OneMeasurement update = new OneMeasurementHistogram("UPDATE", props);
+    for (int i = 1; i <= 100; i++) {
+      read.measure(i);
+      read.reportStatus(Status.OK);
+      update.measure(i);
+    }
+    read.reportStatus(Status.NOT_FOUND);
+    read.getSummary();
+    update.getSummary();
+    // measured after the summary, so not part of the published interval
+    read.measure(1000000);
+
+    MetricsServer server = new MetricsServer(null, 0);
+    server.start();
+    try {
+      assertEquals(scrape(server), Arrays.asList("# EOF"));
+
+      server.publish(200, 12.5, Arrays.asList(read, update));
+      List<String> lines = scrape(server);
+      assertEquals(lines.get(lines.size() - 1), "# EOF");
+      assertTrue(lines.contains("ycsb_operations_total 200"));
+      assertTrue(lines.contains("ycsb_throughput_ops_per_second 12.5"));
+      assertTrue(lines.contains("ycsb_interval_operations{operation=\"READ\"} 100"));
+      assertTrue(lines.contains("# TYPE ycsb_interval_latency_microseconds summary"));
+      assertTrue(lines.contains("ycsb_interval_latency_microseconds{operation=\"READ\",quantile=\"0\"} 1"));
+      assertTrue(lines.contains("ycsb_interval_latency_microseconds{operation=\"READ\",quantile=\"0.5\"} 50"));
+      assertTrue(lines.contains("ycsb_interval_latency_microseconds{operation=\"READ\",quantile=\"1\"} 100"));
+      assertTrue(lines.contains("ycsb_interval_latency_average_microseconds{operation=\"READ\"} 50.5"));
+      assertTrue(lines.contains("ycsb_operation_status_total{operation=\"READ\",status=\"OK\"} 100"));
+      assertTrue(lines.contains("ycsb_operation_status_total{operation=\"READ\",status=\"NOT_FOUND\"} 1"));
+      assertTrue(lines.contains("# TYPE ycsb_jvm_gc_collections counter"));
+      // the histogram type keeps no interval histogram, so there are no quantiles, only the operations and average
+      assertTrue(lines.contains("ycsb_interval_operations{operation=\"UPDATE\"} 100"));
+      assertTrue(lines.contains("ycsb_interval_latency_average_microseconds{operation=\"UPDATE\"} 50.5"));
+      for (String line : lines) {
+        assertTrue(!line.contains("quantile") || !line.contains("UPDATE"), line);
+      }
+    } finally {
+      server.stop();
+    }
+  }
+
+  private static List<String> scrape(MetricsServer server) throws Exception {
+    URL url = new URL("http://" + server.getAddress().getHostString() + ":" + server.getPort() + MetricsServer.PATH);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    assertEquals(connection.getResponseCode(), 200);
+    assertEquals(connection.getContentType(), MetricsServer.CONTENT_TYPE);
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader in = new BufferedReader(
+        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    return lines;
+  }
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.HdrHistogram.Histogram;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.ResultSet;
+import site.ycsb.measurements.TestResultSet;
+
+public class TestResultsTool {
+
+  private static final long START = 1600000000000L;
+
+  @Test
+  public void mannWhitneyPValues() {
+    double[] low = {1, 2, 3, 4, 5, 6, 7, 8};
+    double[] high = {11, 12, 13, 14, 15, 16, 17, 18};
+    assertTrue(ResultsTool.mannWhitneyPValue(low, high) < 0.001);
+    assertTrue(ResultsTool.mannWhitneyPValue(high, low) > 0.999);
+    // the same values in a different order are no evidence either way
+    double p = ResultsTool.mannWhitneyPValue(low, new double[] {8, 7, 6, 5, 4, 3, 2, 1});
+    assertTrue(p > 0.4 && p < 0.6, "p " + p);
+    assertEquals(ResultsTool.mannWhitneyPValue(new double[] {3, 3}, new double[] {3, 3, 3}), 1.0);
+    assertTrue(Double.isNaN(ResultsTool.mannWhitneyPValue(new double[] {1}, high)));
+  }
+
+  @Test
+  public void flagsSlowerCandidates() throws Exception {
+    Path baselineDir = Files.createTempDirectory("baseline");
+    Path candidateDir = Files.createTempDirectory("candidate");
+    try {
+      Histogram[] baseline = new Histogram[12];
+      Histogram[] candidate = new Histogram[12];
+      for (int i = 0; i < baseline.length; i++) {
+        // the candidate does fewer operations per interval, each taking longer
+        baseline[i] = TestResultSet.histogram(100 + i, 1100 + i);
+        candidate[i] = TestResultSet.histogram(150 + i, 950 + i);
+        candidate[i].recordValueWithCount(1200 + i, 50);
+      }
+      TestResultSet.writeLog(baselineDir.resolve("READ.hdr"), "READ", START, 10, baseline);
+      TestResultSet.writeLog(candidateDir.resolve("READ.hdr"), "READ", START + 3600000, 10, candidate);
+      // measurements of the JVM differ too, but aren't operations
+      TestResultSet.writeLog(baselineDir.resolve("THREAD_COUNT.hdr"), "THREAD_COUNT", START, 10, baseline);
+      TestResultSet.writeLog(candidateDir.resolve("THREAD_COUNT.hdr"), "THREAD_COUNT", START + 3600000, 10,
+          candidate);
+      ResultSet base = new ResultSet(10000);
+      base.add(baselineDir);
+      ResultSet cand = new ResultSet(10000);
+      cand.add(candidateDir);
+
+      List<ResultsTool.Change> changes = ResultsTool.compare(base, cand, Arrays.asList(50.0, 99.0), 0.05, 0.05);
+      assertEquals(changes.size(), 3);
+      // 851 instead of 1001 operations
+      assertTrue(changes.get(0).isRegression(), changes.get(0).toString());
+      assertTrue(changes.get(0).toString().startsWith("[READ], Throughput(ops/sec), 100.10, 85.10, -14.99%"),
+          changes.get(0).toString());
+      // the median moves less than the threshold
+      assertFalse(changes.get(1).isRegression(), changes.get(1).toString());
+      assertTrue(changes.get(2).isRegression(), changes.get(2).toString());
+
+      // nothing is flagged comparing the baseline with itself
+      for (ResultsTool.Change change : ResultsTool.compare(base, base, Arrays.asList(50.0, 99.0), 0.05, 0.05)) {
+        assertFalse(change.isRegression(), change.toString());
+      }
+    } finally {
+      TestResultSet.delete(baselineDir);
+      TestResultSet.delete(candidateDir);
+    }
+  }
+}
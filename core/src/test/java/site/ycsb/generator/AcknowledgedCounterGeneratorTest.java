@@ -16,9 +16,14 @@
  */
 package site.ycsb.generator;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
 import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.testng.annotations.Test;
 
@@ -58,4 +63,54 @@ public class AcknowledgedCounterGeneratorTest {
     }
 
   }
+
+  /**
+   * Test that a full window blocks new values until the oldest one is acknowledged.
+   */
+  @Test
+  public void testFullWindowBlocksNextValue() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(10, 3);
+    assertEquals(generator.getWindowSize(), 4);
+    for (long i = 10; i < 14; ++i) {
+      assertEquals(generator.nextValue().longValue(), i);
+    }
+
+    final AtomicBoolean issued = new AtomicBoolean(false);
+    Thread fifth = new Thread(() -> {
+      generator.nextValue();
+      issued.set(true);
+    });
+    fifth.start();
+    generator.acknowledge(11);
+    fifth.join(200);
+    assertFalse(issued.get());
+    assertEquals(generator.lastValue().longValue(), 9);
+
+    generator.acknowledge(10);
+    fifth.join();
+    assertTrue(issued.get());
+    assertEquals(generator.lastValue().longValue(), 11);
+  }
+
+  /**
+   * Test that concurrent acknowledgements advance the limit over every value.
+   */
+  @Test
+  public void testConcurrentAcknowledgements() throws Exception {
+    final AcknowledgedCounterGenerator generator = new AcknowledgedCounterGenerator(0, 64);
+    final int perThread = 100000;
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; ++t) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < perThread; ++i) {
+          generator.acknowledge(generator.nextValue());
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(generator.lastValue().longValue(), threads.length * perThread - 1);
+  }
 }
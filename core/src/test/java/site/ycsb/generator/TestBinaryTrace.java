@@ -0,0 +1,104 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.testng.annotations.Test;
+
+import site.ycsb.Utils;
+
+public class TestBinaryTrace {
+
+  @Test
+  public void convertTextTrace() throws Exception {
+    Path text = Files.createTempFile("trace", ".txt");
+    Path binary = Files.createTempFile("trace", ".bin");
+    try {
+      Files.write(text, Arrays.asList(
+          "# op key size timestamp",
+          "READ user12 0 1000",
+          "update,7,250,1500",
+          "",
+          "SCAN http://example.com/a 10 2000",
+          "delete user12 0 2500"), StandardCharsets.UTF_8);
+      assertEquals(TraceConverter.convert(text, binary, BinaryTrace.READ, 0), 4);
+
+      try (BinaryTrace trace = BinaryTrace.open(binary)) {
+        assertEquals(trace.size(), 4);
+        assertTrue(trace.hasTimestamps());
+        assertEquals(trace.operation(0), BinaryTrace.READ);
+        assertEquals(trace.key(0), 12);
+        assertEquals(trace.timestamp(0), 1000);
+        assertEquals(trace.operation(1), BinaryTrace.UPDATE);
+        assertEquals(trace.key(1), 7);
+        assertEquals(trace.valueSize(1), 250);
+        assertEquals(trace.operation(2), BinaryTrace.SCAN);
+        assertEquals(trace.key(2), Utils.fnvhash64("http://example.com/a"));
+        assertEquals(trace.valueSize(2), 10);
+        assertEquals(trace.operation(3), BinaryTrace.DELETE);
+        assertEquals(trace.timestamp(3), 2500);
+      }
+
+      // a key per line, as in the trace files of the RestWorkload
+      Files.write(text, Arrays.asList("user1", "user2", "user3"), StandardCharsets.UTF_8);
+      assertEquals(TraceConverter.convert(text, binary, BinaryTrace.INSERT, 50), 3);
+      try (BinaryTrace trace = BinaryTrace.open(binary)) {
+        assertFalse(trace.hasTimestamps());
+        assertEquals(trace.operation(2), BinaryTrace.INSERT);
+        assertEquals(trace.key(2), 3);
+        assertEquals(trace.valueSize(2), 50);
+        assertEquals(trace.timestamp(2), 0);
+      }
+    } finally {
+      Files.delete(text);
+      Files.delete(binary);
+    }
+  }
+
+  @Test
+  public void generatorsStripeTheTrace() throws Exception {
+    Path binary = Files.createTempFile("trace", ".bin");
+    try {
+      try (BinaryTrace.Writer writer = new BinaryTrace.Writer(binary, false)) {
+        for (int i = 0; i < 10; i++) {
+          writer.write(BinaryTrace.INSERT, i, 10, 0);
+        }
+      }
+      try (BinaryTrace trace = BinaryTrace.open(binary)) {
+        TraceGenerator first = new TraceGenerator(trace, 0, 3);
+        TraceGenerator second = new TraceGenerator(trace, 1, 3);
+        assertNull(first.lastValue());
+        assertEquals(first.nextValue().longValue(), 0);
+        assertEquals(first.nextValue().longValue(), 3);
+        assertEquals(second.nextValue().longValue(), 1);
+        assertEquals(first.lastValue().longValue(), 3);
+      }
+    } finally {
+      Files.delete(binary);
+    }
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class TestDiscreteGenerator {
+
+  @Test
+  public void drawsValuesInProportionToTheirWeights() {
+    DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(0.5, "A");
+    generator.addValue(0.3, "B");
+    generator.addValue(0.15, "C");
+    generator.addValue(0.05, "D");
+
+    int draws = 1000000;
+    int[] counts = new int[generator.size()];
+    for (int i = 0; i < draws; i++) {
+      counts[generator.nextIndex()]++;
+    }
+    double[] expected = {0.5, 0.3, 0.15, 0.05};
+    for (int i = 0; i < counts.length; i++) {
+      double share = counts[i] / (double) draws;
+      assertTrue(Math.abs(share - expected[i]) < 0.005, generator.getValue(i) + " drawn " + share);
+    }
+  }
+
+  @Test
+  public void singleValueIsAlwaysDrawn() {
+    DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(3, "ONLY");
+    for (int i = 0; i < 100; i++) {
+      assertEquals(generator.nextString(), "ONLY");
+    }
+  }
+
+  @Test
+  public void emptyGeneratorDrawsNothing() {
+    DiscreteGenerator generator = new DiscreteGenerator();
+    assertEquals(generator.nextIndex(), -1);
+    assertNull(generator.nextValue());
+  }
+
+  @Test(expectedExceptions = IllegalStateException.class)
+  public void valuesCannotBeAddedAfterTheFirstDraw() {
+    DiscreteGenerator generator = new DiscreteGenerator();
+    generator.addValue(1, "A");
+    generator.nextValue();
+    generator.addValue(1, "B");
+  }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class TestHistogramGenerator {
+
+  @Test
+  public void drawsValuesInProportionToTheirCounts() {
+    HistogramGenerator generator = new HistogramGenerator(new long[] {10, 20, 30, 40}, new long[] {5, 0, 3, 2});
+    assertEquals(generator.mean(), (10 * 5 + 30 * 3 + 40 * 2) / 10.0, 1e-9);
+
+    int draws = 1000000;
+    Map<Long, Integer> counts = new HashMap<>();
+    for (int i = 0; i < draws; i++) {
+      counts.merge(generator.nextValue(), 1, Integer::sum);
+    }
+    assertEquals(counts.keySet().size(), 3);
+    assertTrue(Math.abs(counts.get(10L) / (double) draws - 0.5) < 0.005);
+    assertTrue(Math.abs(counts.get(30L) / (double) draws - 0.3) < 0.005);
+    assertTrue(Math.abs(counts.get(40L) / (double) draws - 0.2) < 0.005);
+  }
+
+  @Test
+  public void blockBucketsAreMultiplesOfTheBlockSize() {
+    HistogramGenerator generator = new HistogramGenerator(new long[] {0, 0, 1}, 512);
+    for (int i = 0; i < 100; i++) {
+      assertEquals(generator.nextValue().longValue(), 3 * 512);
+    }
+    assertEquals(generator.mean(), 3 * 512, 1e-9);
+  }
+
+  @Test
+  public void readsBothFileFormats() throws Exception {
+    Path file = Files.createTempFile("histogram", ".txt");
+    try {
+      Files.write(file, Arrays.asList("# size count", "4096 1", "", "100,0"), StandardCharsets.UTF_8);
+      HistogramGenerator compact = new HistogramGenerator(file.toString());
+      assertEquals(compact.nextValue().longValue(), 4096);
+
+      Files.write(file, Arrays.asList("BlockSize\t10", "1\t0", "0\t0", "2\t7"), StandardCharsets.UTF_8);
+      HistogramGenerator blocks = new HistogramGenerator(file.toString());
+      assertEquals(blocks.nextValue().longValue(), 30);
+    } finally {
+      Files.delete(file);
+    }
+  }
+}
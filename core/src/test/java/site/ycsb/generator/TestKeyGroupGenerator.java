@@ -0,0 +1,47 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+public class TestKeyGroupGenerator {
+
+  @Test
+  public void consecutiveKeysWrapAround() {
+    KeyGroupGenerator groups = new KeyGroupGenerator(10, 4, 0);
+    assertEquals(groups.group(12, 19), new long[] {12, 13, 14, 15});
+    assertEquals(groups.group(18, 19), new long[] {18, 19, 10, 11});
+  }
+
+  @Test
+  public void spreadGroupsAreDeterministicAndDistinct() {
+    KeyGroupGenerator groups = new KeyGroupGenerator(0, 8, 100);
+    for (long primary = 0; primary < 1000; primary++) {
+      long[] group = groups.group(primary, 999999);
+      assertEquals(groups.group(primary, 999999), group);
+      assertEquals(group[0], primary);
+      for (int i = 1; i < group.length; i++) {
+        long gap = group[i] - group[i - 1];
+        assertTrue(gap >= 1 && gap <= 100, "gap " + gap);
+      }
+    }
+  }
+}
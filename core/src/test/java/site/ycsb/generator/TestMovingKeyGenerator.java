@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.generator;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.Test;
+
+public class TestMovingKeyGenerator {
+
+  @Test
+  public void slidesByAFractionPerInterval() {
+    AtomicLong now = new AtomicLong(1000);
+    MovingKeyGenerator generator = new MovingKeyGenerator(new ConstantIntegerGenerator(100), 100, 199,
+        MovingKeyGenerator.Movement.SLIDE, 1000, 0.1, now::get);
+    assertEquals(generator.nextValue().longValue(), 100);
+    now.addAndGet(500);
+    assertEquals(generator.nextValue().longValue(), 105);
+    now.addAndGet(9500);
+    // slid by the whole range and wrapped around
+    assertEquals(generator.nextValue().longValue(), 100);
+    now.addAndGet(5000);
+    assertEquals(generator.nextValue().longValue(), 150);
+    assertEquals(generator.lastValue().longValue(), 150);
+  }
+
+  @Test
+  public void jumpsEveryInterval() {
+    AtomicLong now = new AtomicLong();
+    MovingKeyGenerator generator = new MovingKeyGenerator(new ConstantIntegerGenerator(5), 0, 999,
+        MovingKeyGenerator.Movement.JUMP, 1000, 0, now::get);
+    assertEquals(generator.nextValue().longValue(), 5);
+    now.set(999);
+    assertEquals(generator.nextValue().longValue(), 5);
+    now.set(1000);
+    long first = generator.nextValue();
+    now.set(1999);
+    assertEquals(generator.nextValue().longValue(), first);
+    now.set(2000);
+    long second = generator.nextValue();
+    assertNotEquals(second, first);
+    assertTrue(second >= 0 && second <= 999);
+  }
+}
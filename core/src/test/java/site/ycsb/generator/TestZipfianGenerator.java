@@ -19,6 +19,7 @@ package site.ycsb.generator;
 
 import org.testng.annotations.Test;
 
+import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertFalse;
 
 
@@ -36,4 +37,88 @@ public class TestZipfianGenerator {
         }
 
     }
+
+    @Test
+    public void testApproximateZetaMatchesExactSum() {
+        for (double theta : new double[] {0.5, 0.99, 1.0, 1.5}) {
+            long n = 200000;
+            // Kahan summation, so that the reference is more accurate than the approximation
+            double exact = 0;
+            double compensation = 0;
+            for (long i = n; i >= 1; i--) {
+                double term = 1 / Math.pow(i, theta) - compensation;
+                double sum = exact + term;
+                compensation = (sum - exact) - term;
+                exact = sum;
+            }
+            assertEquals(exact, ZipfianGenerator.zetastatic(n, theta), exact * 1e-14);
+            double incremental = ZipfianGenerator.zetastatic(n / 3, n, theta, ZipfianGenerator.zetastatic(n / 3, theta));
+            assertEquals(exact, incremental, exact * 1e-14);
+        }
+    }
+
+    @Test
+    public void testDecrementalZetaMatchesFromScratch() {
+        for (double theta : new double[] {0.5, 0.99, 1.5}) {
+            double full = ZipfianGenerator.zetastatic(10000000, theta);
+            for (long n : new long[] {9999999, 9999500, 9000000, 999}) {
+                double expected = ZipfianGenerator.zetastatic(n, theta);
+                assertEquals(expected, ZipfianGenerator.zetastatic(10000000, n, theta, full), expected * 1e-13);
+            }
+        }
+    }
+
+    @Test
+    public void testGrowingItemCount() {
+        ZipfianGenerator zipfian = new ZipfianGenerator(1000);
+        // single items, and jumps both within and beyond the EXACT_TERMS summed exactly
+        for (long itemcount : new long[] {1001, 1002, 1500, 2500, 10000, 100000, 1000000}) {
+            assertFirstItemFrequency(zipfian, itemcount);
+        }
+    }
+
+    @Test
+    public void testConcurrentlyGrowingItemCount() throws InterruptedException {
+        final ZipfianGenerator zipfian = new ZipfianGenerator(1000);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final long step = 997 + t;
+            threads[t] = new Thread(() -> {
+                for (long itemcount = 1000; itemcount <= 200000; itemcount += step) {
+                    zipfian.nextLong(itemcount);
+                }
+                zipfian.nextLong(200000);
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        // whichever thread won each race, zeta must be that of the largest item count
+        assertFirstItemFrequency(zipfian, 200000);
+    }
+
+    @Test
+    public void testShrinkingItemCount() {
+        ZipfianGenerator zipfian = new ZipfianGenerator(1000000);
+        zipfian.setAllowItemCountDecrease(true);
+        for (long itemcount = 1000000; itemcount > 10; itemcount /= 3) {
+            assertFirstItemFrequency(zipfian, itemcount);
+        }
+    }
+
+    private static void assertFirstItemFrequency(ZipfianGenerator zipfian, long itemcount) {
+        int first = 0;
+        for (int i = 0; i < 10000; i++) {
+            long rnd = zipfian.nextLong(itemcount);
+            assertFalse(rnd < 0);
+            assertFalse(rnd >= itemcount);
+            if (rnd == 0) {
+                first++;
+            }
+        }
+        // the most popular item gets 1/zeta(itemcount) of the draws
+        double expected = 10000 / ZipfianGenerator.zetastatic(itemcount, ZipfianGenerator.ZIPFIAN_CONSTANT);
+        assertEquals(expected, first, 5 * Math.sqrt(expected));
+    }
 }
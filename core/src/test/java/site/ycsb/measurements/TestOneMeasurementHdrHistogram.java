@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.exporter.JSONArrayMeasurementsExporter;
+
+public class TestOneMeasurementHdrHistogram {
+
+  @Test
+  public void perThreadRecordersAreMerged() throws Exception {
+    Properties props = new Properties();
+    props.put(Measurements.MEASUREMENT_TYPE_PROPERTY, "hdrhistogram-perthread");
+    final Measurements mm = new Measurements(props);
+
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      final int latency = (t + 1) * 100;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          mm.measure("READ", latency);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    String summary = mm.getSummary();
+    assertTrue(summary.contains("[READ: Count=4000, Max=400, Min=100,"), summary);
+
+    mm.measure("READ", 1000);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+    mm.exportMeasurements(export);
+    export.close();
+
+    JsonNode json = new ObjectMapper().readTree(out.toString("UTF-8"));
+    assertEquals(json.get(0).get("measurement").asText(), "Operations");
+    assertEquals(json.get(0).get("value").asLong(), 4001);
+    assertEquals(json.get(3).get("measurement").asText(), "MaxLatency(us)");
+    assertEquals(json.get(3).get("value").asLong(), 1000);
+  }
+
+  @Test
+  public void recordersOfEndedThreadsAreDropped() throws Exception {
+    final OneMeasurementHdrHistogram measurement = new OneMeasurementHdrHistogram("READ", new Properties(), true);
+    Thread[] threads = new Thread[2];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 1000; i++) {
+          measurement.measure(100);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    measurement.measure(200);
+    assertEquals(measurement.getThreadRecorderCount(), 3);
+
+    String summary = measurement.getSummary();
+    assertTrue(summary.contains("[READ: Count=2001, Max=200, Min=100,"), summary);
+    assertEquals(measurement.getThreadRecorderCount(), 1);
+
+    measurement.measure(300);
+    summary = measurement.getSummary();
+    assertTrue(summary.contains("[READ: Count=1, Max=300, Min=300,"), summary);
+    assertEquals(measurement.getThreadRecorderCount(), 1);
+  }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.exporter.JSONArrayMeasurementsExporter;
+
+public class TestOneMeasurementHistogram {
+
+  @Test
+  public void concurrentMeasurementsAreAllCounted() throws Exception {
+    final OneMeasurementHistogram measurement = new OneMeasurementHistogram("READ", new Properties());
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final int latency = t * 1000;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 100000; i++) {
+          measurement.measure(latency);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(measurement.getSummary(), "[READ AverageLatency(us)=3500]");
+    assertEquals(measurement.getSummary(), "");
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+    measurement.exportMeasurements(export);
+    export.close();
+
+    JsonNode json = new ObjectMapper().readTree(out.toString("UTF-8"));
+    assertEquals(json.get(0).get("value").asLong(), 800000);
+    assertEquals(json.get(1).get("value").asDouble(), 3500.0);
+    assertEquals(json.get(3).get("value").asInt(), 0);
+    assertEquals(json.get(4).get("value").asInt(), 7000);
+    assertEquals(json.get(5).get("measurement").asText(), "95thPercentileLatency(us)");
+    assertEquals(json.get(5).get("value").asInt(), 7000);
+  }
+}
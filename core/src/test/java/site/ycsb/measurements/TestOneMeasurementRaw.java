@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Properties;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.exporter.JSONArrayMeasurementsExporter;
+
+public class TestOneMeasurementRaw {
+
+  private static final int THREADS = 4;
+  private static final int POINTS = 3 * Integer.parseInt(OneMeasurementRaw.BUFFER_SIZE_DEFAULT);
+
+  @Test
+  public void writesTextThroughTheSpillFile() throws Exception {
+    Path output = Files.createTempFile("raw", ".csv");
+    try {
+      Properties props = new Properties();
+      props.setProperty(OneMeasurementRaw.OUTPUT_FILE_PATH, output.toString());
+      JsonNode json = record(new OneMeasurementRaw("READ", props));
+
+      List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+      assertEquals(lines.size(), 1 + THREADS * POINTS);
+      assertEquals(lines.get(0), "READ latency raw data: op, timestamp(ms), latency(us)");
+      long now = System.currentTimeMillis();
+      long[] sums = new long[THREADS];
+      for (String line : lines.subList(1, lines.size())) {
+        String[] fields = line.split(",");
+        assertEquals(fields[0], "READ");
+        long timestamp = Long.parseLong(fields[1]);
+        assertTrue(timestamp <= now && timestamp > now - 60000, line);
+        int latency = Integer.parseInt(fields[2]);
+        sums[latency / POINTS]++;
+      }
+      for (long sum : sums) {
+        assertEquals(sum, POINTS);
+      }
+
+      assertEquals(json.get(0).get("measurement").asText(), "Total Operations");
+      assertEquals(json.get(0).get("value").asLong(), THREADS * POINTS);
+      assertEquals(json.get(3).get("measurement").asText(), "Min");
+      assertEquals(json.get(3).get("value").asLong(), 0);
+    } finally {
+      Files.delete(output);
+    }
+  }
+
+  @Test
+  public void keepsTheBinarySpillFile() throws Exception {
+    Path dir = Files.createTempDirectory("raw");
+    Path spill = dir.resolve("UPDATE.raw");
+    try {
+      Properties props = new Properties();
+      props.setProperty(OneMeasurementRaw.BINARY_OUTPUT_DIR, dir.toString());
+      props.setProperty(OneMeasurementRaw.NO_SUMMARY_STATS, "true");
+      // far smaller than the data points of each thread, so that the threads wait for the writer
+      props.setProperty(OneMeasurementRaw.BUFFER_SIZE, "100");
+      JsonNode json = record(new OneMeasurementRaw("UPDATE", props));
+      assertEquals(json.get(0).get("value").asLong(), THREADS * POINTS);
+      assertEquals(json.get(1).get("measurement").asText(), "Buffer Wait Time(ms)");
+      assertTrue(json.get(1).get("value").asLong() >= 0);
+      assertEquals(json.get(2).get("measurement").asText(), "Dropped Data Points");
+      assertEquals(json.get(2).get("value").asLong(), 0);
+
+      ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(spill));
+      assertEquals(data.remaining(), 8 * (1 + THREADS * POINTS));
+      long start = data.getLong();
+      assertTrue(start <= System.currentTimeMillis());
+      long total = 0;
+      while (data.hasRemaining()) {
+        total += (int) data.getLong();
+      }
+      long n = (long) THREADS * POINTS;
+      assertEquals(total, n * (n - 1) / 2);
+    } finally {
+      Files.deleteIfExists(spill);
+      Files.delete(dir);
+    }
+  }
+
+  /**
+   * Records POINTS latencies from each of THREADS threads, thread t recording the latencies t * POINTS to
+   * (t + 1) * POINTS - 1, and exports the measurement.
+   */
+  private static JsonNode record(final OneMeasurementRaw measurement) throws Exception {
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < threads.length; t++) {
+      final int first = t * POINTS;
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < POINTS; i++) {
+          measurement.measure(first + i);
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+    measurement.exportMeasurements(export);
+    export.close();
+    return new ObjectMapper().readTree(out.toString("UTF-8"));
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Properties;
+
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.exporter.JSONArrayMeasurementsExporter;
+
+public class TestOneMeasurementTimeSeries {
+
+  @Test
+  public void concurrentMeasurementsAreAllCounted() throws Exception {
+    Properties props = new Properties();
+    props.setProperty(OneMeasurementTimeSeries.GRANULARITY, "10");
+    final OneMeasurementTimeSeries measurement = new OneMeasurementTimeSeries("UPDATE", props);
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 20; i++) {
+          for (int j = 0; j < 1000; j++) {
+            measurement.measure(100);
+          }
+          try {
+            Thread.sleep(1);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+    measurement.exportMeasurements(export);
+    export.close();
+
+    JsonNode json = new ObjectMapper().readTree(out.toString("UTF-8"));
+    assertEquals(json.get(0).get("value").asLong(), 160000);
+    assertEquals(json.get(1).get("value").asDouble(), 100.0);
+    long previous = -1;
+    for (int i = 4; i < json.size(); i++) {
+      long unit = Long.parseLong(json.get(i).get("measurement").asText());
+      assertEquals(unit % 10, 0);
+      assertEquals(unit > previous, true);
+      previous = unit;
+      assertEquals(json.get(i).get("value").asDouble(), 100.0);
+    }
+  }
+}
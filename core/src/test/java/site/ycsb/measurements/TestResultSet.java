@@ -0,0 +1,191 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.measurements;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.HdrHistogram.Histogram;
+import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.map.ObjectMapper;
+import org.testng.annotations.Test;
+
+import site.ycsb.measurements.exporter.JSONArrayMeasurementsExporter;
+
+public class TestResultSet {
+
+  private static final long START = 1600000000000L;
+
+  @Test
+  public void mergesTheLogsOfClientsByInterval() throws Exception {
+    Path dir = Files.createTempDirectory("results");
+    try {
+      // client 1 logs 10s intervals from START, client 2 logs 5s intervals from START + 1s
+      writeLog(dir.resolve("client1-READ.hdr"), "READ", START, 10, histogram(1, 100), histogram(101, 200));
+      writeLog(dir.resolve("client2-READ.hdr"), "READ", START + 1000, 5,
+          histogram(1000, 1009), histogram(1010, 1019), histogram(1020, 1029));
+      ResultSet results = new ResultSet(10000);
+      results.add(dir);
+
+      ResultSet.Result read = results.getResult("READ");
+      assertEquals(read.getOperations(), 230);
+      assertEquals(read.getTotal().getMaxValue(), 1029, 1);
+      // client 2's second interval, from 6s to 11s, is split 8 to 2 over the buckets
+      assertEquals(new ArrayList<>(read.getIntervalOperations().keySet()), Arrays.asList(START, START + 10000));
+      assertEquals(new ArrayList<>(read.getIntervalOperations().values()), Arrays.asList(118.0, 112.0));
+      assertEquals(read.getIntervals().get(START).getValueAtPercentile(50), 60, 1);
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void mergesJsonExports() throws Exception {
+    Path dir = Files.createTempDirectory("results");
+    try {
+      Files.write(dir.resolve("client1.json"), Arrays.asList("[",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Interval\",\"start\":" + START + ",\"end\":" + (START + 10000)
+              + ",\"Operations\":100,\"Throughput(ops/sec)\":10.0},",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"RunTime(ms)\",\"value\":10000},",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Throughput(ops/sec)\",\"value\":10.0},",
+          "{\"metric\":\"READ\",\"measurement\":\"Operations\",\"value\":100},",
+          "{\"metric\":\"READ\",\"measurement\":\"AverageLatency(us)\",\"value\":10.0},",
+          "{\"metric\":\"READ\",\"measurement\":\"MinLatency(us)\",\"value\":2},",
+          "{\"metric\":\"READ\",\"measurement\":\"MaxLatency(us)\",\"value\":50},",
+          "{\"metric\":\"READ\",\"measurement\":\"99thPercentileLatency(us)\",\"value\":40},",
+          "{\"metric\":\"READ\",\"measurement\":\"Return=OK\",\"value\":100}",
+          "]"), StandardCharsets.UTF_8);
+      // the JSON exporter writes objects one after the other
+      Files.write(dir.resolve("client2.json"), Arrays.asList(
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Interval\",\"start\":" + (START + 2000) + ",\"end\":"
+              + (START + 12000) + ",\"Operations\":300,\"Throughput(ops/sec)\":30.0}",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"RunTime(ms)\",\"value\":12000}",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Throughput(ops/sec)\",\"value\":25.0}",
+          "{\"metric\":\"READ\",\"measurement\":\"Operations\",\"value\":300}",
+          "{\"metric\":\"READ\",\"measurement\":\"AverageLatency(us)\",\"value\":30.0}",
+          "{\"metric\":\"READ\",\"measurement\":\"MinLatency(us)\",\"value\":5}",
+          "{\"metric\":\"READ\",\"measurement\":\"MaxLatency(us)\",\"value\":90}",
+          "{\"metric\":\"READ\",\"measurement\":\"Return=OK\",\"value\":299}",
+          "{\"metric\":\"READ\",\"measurement\":\"Return=ERROR\",\"value\":1}"), StandardCharsets.UTF_8);
+      ResultSet results = new ResultSet(10000);
+      results.add(dir);
+
+      assertEquals(results.getRuntime(), 12000);
+      assertEquals(results.getThroughput(), 35.0, 1e-9);
+      assertEquals(new ArrayList<>(results.getResult(ResultSet.OVERALL).getIntervalOperations().values()),
+          Arrays.asList(340.0, 60.0));
+      ResultSet.Result read = results.getResult("READ");
+      assertNull(read.getTotal());
+      assertEquals(read.getOperations(), 400);
+      assertEquals((long) read.getReturnCodes().get("OK"), 399);
+
+      JsonNode json = export(results);
+      assertEquals(json.get(0).get("measurement").asText(), "Interval");
+      assertEquals(json.get(0).get("Throughput(ops/sec)").asDouble(), 34.0, 1e-9);
+      assertEquals(json.get(1).get("Operations").asLong(), 60);
+      assertEquals(json.get(4).get("metric").asText(), "READ");
+      assertEquals(json.get(4).get("measurement").asText(), "Operations");
+      assertEquals(json.get(5).get("value").asDouble(), 25.0, 1e-9);
+      assertEquals(json.get(6).get("value").asLong(), 2);
+      assertEquals(json.get(7).get("value").asLong(), 90);
+      assertEquals(json.get(8).get("measurement").asText(), "Return=ERROR");
+    } finally {
+      delete(dir);
+    }
+  }
+
+  @Test
+  public void countsBucketsWithoutOperationsAsZero() throws Exception {
+    Path dir = Files.createTempDirectory("results");
+    try {
+      // a client that stalled from 10s to 30s, and logged nothing in between
+      Files.write(dir.resolve("client.json"), Arrays.asList(
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Interval\",\"start\":" + START + ",\"end\":"
+              + (START + 10000) + ",\"Operations\":100,\"Throughput(ops/sec)\":10.0}",
+          "{\"metric\":\"OVERALL\",\"measurement\":\"Interval\",\"start\":" + (START + 30000) + ",\"end\":"
+              + (START + 40000) + ",\"Operations\":100,\"Throughput(ops/sec)\":10.0}"), StandardCharsets.UTF_8);
+      ResultSet results = new ResultSet(10000);
+      results.add(dir);
+
+      assertEquals(new ArrayList<>(results.getResult(ResultSet.OVERALL).getIntervalOperations().values()),
+          Arrays.asList(100.0, 0.0, 0.0, 100.0));
+    } finally {
+      delete(dir);
+    }
+  }
+
+  /**
+   * @return A histogram of the latencies from min to max.
+   */
+  public static Histogram histogram(int min, int max) {
+    Histogram histogram = new Histogram(3);
+    for (int latency = min; latency <= max; latency++) {
+      histogram.recordValue(latency);
+    }
+    return histogram;
+  }
+
+  /**
+   * Writes a log the way OneMeasurementHdrHistogram does, of consecutive intervals.
+   */
+  public static void writeLog(Path file, String name, long startMs, int intervalSeconds, Histogram... intervals)
+      throws IOException {
+    List<String> lines = new ArrayList<>();
+    lines.add("#[Logging for: " + name + "]");
+    lines.add("#[Histogram log format version 1.1]");
+    lines.add(String.format("#[StartTime: %.3f (seconds since epoch), whenever]", startMs / 1000.0));
+    lines.add("\"StartTimestamp\",\"Interval_Length\",\"Interval_Max\",\"Interval_Compressed_Histogram\"");
+    for (int i = 0; i < intervals.length; i++) {
+      ByteBuffer buffer = ByteBuffer.allocate(intervals[i].getNeededByteBufferCapacity());
+      int length = intervals[i].encodeIntoCompressedByteBuffer(buffer);
+      lines.add(String.format("%.3f,%.3f,%.3f,%s", (double) i * intervalSeconds, (double) intervalSeconds,
+          intervals[i].getMaxValue() / 1000000.0,
+          Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length))));
+    }
+    Files.write(file, lines, StandardCharsets.UTF_8);
+  }
+
+  private static JsonNode export(ResultSet results) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+    results.export(export, Arrays.asList(99.0));
+    export.close();
+    return new ObjectMapper().readTree(out.toString("UTF-8"));
+  }
+
+  public static void delete(Path dir) throws IOException {
+    try (Stream<Path> walk = Files.walk(dir)) {
+      for (Path path : (Iterable<Path>) walk.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+}
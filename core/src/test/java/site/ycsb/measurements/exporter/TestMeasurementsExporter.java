@@ -18,6 +18,7 @@ package site.ycsb.measurements.exporter;
 
 import site.ycsb.generator.ZipfianGenerator;
 import site.ycsb.measurements.Measurements;
+import site.ycsb.measurements.OneMeasurementHdrHistogram;
 import site.ycsb.measurements.OneMeasurementHistogram;
 
 import org.codehaus.jackson.JsonNode;
@@ -58,4 +59,50 @@ public class TestMeasurementsExporter {
         assertEquals(json.get(4).get("measurement").asText(), "MaxLatency(us)");
         assertEquals(json.get(11).get("measurement").asText(), "4");
     }
+
+    @Test
+    public void testJSONArrayMeasurementsExporterWritesIntervals() throws IOException {
+        Properties props = new Properties();
+        props.put(OneMeasurementHdrHistogram.PERCENTILES_PROPERTY, "50,99.9");
+        Measurements mm = new Measurements(props);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        JSONArrayMeasurementsExporter export = new JSONArrayMeasurementsExporter(out);
+
+        for (int i = 1; i <= 100; i++) {
+            mm.measure("READ", i);
+        }
+        // measured by the status thread, but not an operation
+        mm.measure("USED_MEM_MB", 512);
+        mm.getSummary();
+        mm.exportIntervals(export, 1000, 3000);
+        // the interval objects are flushed as they are written
+        assertTrue(out.toString("UTF-8").contains("\"Interval\""));
+        mm.measure("READ", 7);
+        mm.getSummary();
+        mm.exportIntervals(export, 3000, 4000);
+        mm.exportMeasurements(export);
+        export.close();
+
+        JsonNode json = new ObjectMapper().readTree(out.toString("UTF-8"));
+        JsonNode first = json.get(0);
+        assertEquals(first.get("metric").asText(), "READ");
+        assertEquals(first.get("measurement").asText(), "Interval");
+        assertEquals(first.get("start").asLong(), 1000);
+        assertEquals(first.get("end").asLong(), 3000);
+        assertEquals(first.get("Operations").asLong(), 100);
+        assertEquals(first.get("Throughput(ops/sec)").asDouble(), 50.0, 1e-9);
+        assertEquals(first.get("MinLatency(us)").asLong(), 1);
+        assertEquals(first.get("MaxLatency(us)").asLong(), 100);
+        assertEquals(first.get("50thPercentileLatency(us)").asLong(), 50);
+        assertTrue(first.has("99.9PercentileLatency(us)"));
+        JsonNode second = json.get(1);
+        assertEquals(second.get("Operations").asLong(), 1);
+        assertEquals(second.get("MaxLatency(us)").asLong(), 7);
+        assertEquals(json.get(2).get("measurement").asText(), "Operations");
+        assertEquals(json.get(2).get("value").asLong(), 101);
+        for (JsonNode node : json) {
+            assertTrue(node.toString(), !node.get("metric").asText().equals("USED_MEM_MB")
+                || !node.get("measurement").asText().equals("Interval"));
+        }
+    }
 }
@@ -16,13 +16,29 @@
  */
 package site.ycsb.workloads;
 
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.Vector;
 
 import org.testng.annotations.Test;
 
+import site.ycsb.ByteIterator;
+import site.ycsb.Client;
+import site.ycsb.DB;
+import site.ycsb.DBWrapper;
+import site.ycsb.Status;
+import site.ycsb.WorkloadException;
 import site.ycsb.generator.DiscreteGenerator;
+import site.ycsb.measurements.Measurements;
 
 public class TestCoreWorkload {
 
@@ -67,4 +83,288 @@ public class TestCoreWorkload {
   public void createOperationChooserNullProperties() {
     CoreWorkload.createOperationGenerator(null);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void insertKeysBeyondIntegerRange() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "5000000000");
+    p.setProperty(CoreWorkload.INSERT_START_PROPERTY, "4000000000");
+    p.setProperty(CoreWorkload.INSERT_COUNT_PROPERTY, "2");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final TestTimeSeriesWorkload.MockDB db = new TestTimeSeriesWorkload.MockDB();
+    assertTrue(workload.doInsert(db, null));
+    assertTrue(workload.doInsert(db, null));
+    assertEquals(db.keys.get(0), "user4000000000");
+    assertEquals(db.keys.get(1), "user4000000001");
+
+    for (int i = 0; i < 1000; i++) {
+      long keynum = workload.nextKeynum();
+      assertTrue(keynum >= 4000000000L && keynum <= 4000000001L, "keynum " + keynum);
+    }
+  }
+
+  @Test
+  public void batchedInsertsStopAtInsertCount() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "5");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.FIELD_COUNT_PROPERTY, "1");
+    p.setProperty(CoreWorkload.INSERT_BATCH_SIZE_PROPERTY, "2");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final TestTimeSeriesWorkload.MockDB db = new TestTimeSeriesWorkload.MockDB();
+    assertTrue(workload.doInsert(db, null));
+    assertTrue(workload.doInsert(db, null));
+    assertTrue(workload.doInsert(db, null));
+    assertFalse(workload.doInsert(db, null));
+    assertEquals(db.keys.size(), 5);
+    assertEquals(db.keys.get(4), "user4");
+  }
+
+  @Test
+  public void groupReadsReadConsecutiveKeys() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "10");
+    p.setProperty(Client.OPERATION_COUNT_PROPERTY, "100");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "1");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.KEY_GROUP_SIZE_PROPERTY, "3");
+    p.setProperty(CoreWorkload.KEY_GROUP_READ_PROPERTY, "sequential");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final List<String> reads = new ArrayList<>();
+    final DB db = new TestTimeSeriesWorkload.MockDB() {
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        reads.add(key);
+        return Status.OK;
+      }
+    };
+    for (int i = 0; i < 100; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    assertEquals(reads.size(), 300);
+    for (int i = 0; i < reads.size(); i += 3) {
+      long primary = Long.parseLong(reads.get(i).substring(4));
+      assertEquals(reads.get(i + 1), "user" + (primary + 1) % 10);
+      assertEquals(reads.get(i + 2), "user" + (primary + 2) % 10);
+    }
+  }
+
+  @Test
+  public void deletesRemoveTheOldestRecordsAndReadsOnlyLiveOnes() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "100");
+    p.setProperty(Client.OPERATION_COUNT_PROPERTY, "1000");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.DELETE_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "zipfian");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final List<Long> deleted = new ArrayList<>();
+    final DB db = new TestTimeSeriesWorkload.MockDB() {
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        long keynum = Long.parseLong(key.substring(4));
+        // once all records are deleted, reads choose the next record to be inserted
+        assertTrue(keynum >= deleted.size() && keynum <= 100, "read deleted record " + key);
+        return Status.OK;
+      }
+
+      @Override
+      public Status delete(String table, String key) {
+        deleted.add(Long.parseLong(key.substring(4)));
+        return Status.OK;
+      }
+    };
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    assertEquals(deleted.size(), 100);
+    for (int i = 0; i < deleted.size(); i++) {
+      assertEquals(deleted.get(i).longValue(), i);
+    }
+  }
+
+  @Test (expectedExceptions = WorkloadException.class)
+  public void readModifyWriteNeedsSingleOperationInFlight() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(CoreWorkload.READMODIFYWRITE_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(DBWrapper.MAX_IN_FLIGHT_PROPERTY, "4");
+    Measurements.setProperties(p);
+    new CoreWorkload().init(p);
+  }
+
+  @Test (expectedExceptions = WorkloadException.class, expectedExceptionsMessageRegExp = ".*sequentially.*")
+  public void sequentialGroupReadsNeedSingleOperationInFlight() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(CoreWorkload.KEY_GROUP_SIZE_PROPERTY, "3");
+    p.setProperty(CoreWorkload.KEY_GROUP_READ_PROPERTY, "sequential");
+    p.setProperty(DBWrapper.MAX_IN_FLIGHT_PROPERTY, "4");
+    Measurements.setProperties(p);
+    new CoreWorkload().init(p);
+  }
+
+  @Test
+  public void zipfianWithDeletesDoesNotFavourTheNextRecordToDelete() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    p.setProperty(Client.OPERATION_COUNT_PROPERTY, "1000");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.9");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.DELETE_PROPORTION_PROPERTY, "0.1");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "zipfian");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final int[] reads = new int[2];
+    final List<Long> deleted = new ArrayList<>();
+    final DB db = new TestTimeSeriesWorkload.MockDB() {
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        reads[0]++;
+        if (Long.parseLong(key.substring(4)) == deleted.size()) {
+          reads[1]++;
+        }
+        return Status.OK;
+      }
+
+      @Override
+      public Status delete(String table, String key) {
+        deleted.add(Long.parseLong(key.substring(4)));
+        return Status.OK;
+      }
+    };
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    // the most popular record would get about 1/zeta(1000) = 13% of the reads
+    assertTrue(reads[1] < reads[0] / 20, reads[1] + " of " + reads[0] + " reads of the oldest live record");
+  }
+
+  @Test
+  public void movingZipfianReadsRecordsInsertedDuringTheRun() throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "10");
+    p.setProperty(Client.OPERATION_COUNT_PROPERTY, "400");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0");
+    p.setProperty(CoreWorkload.INSERT_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.INSERT_ORDER_PROPERTY, "ordered");
+    p.setProperty(CoreWorkload.REQUEST_DISTRIBUTION_PROPERTY, "movingzipfian");
+    Measurements.setProperties(p);
+    final CoreWorkload workload = new CoreWorkload();
+    workload.init(p);
+
+    final List<Long> inserted = new ArrayList<>();
+    final List<Long> reads = new ArrayList<>();
+    final DB db = new TestTimeSeriesWorkload.MockDB() {
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        long keynum = Long.parseLong(key.substring(4));
+        assertTrue(keynum < 10 + inserted.size(), "read record " + key + " before its insert");
+        reads.add(keynum);
+        return Status.OK;
+      }
+
+      @Override
+      public Status insert(String table, String key, Map<String, ByteIterator> values) {
+        inserted.add(Long.parseLong(key.substring(4)));
+        return Status.OK;
+      }
+    };
+    for (int i = 0; i < 400; i++) {
+      assertTrue(workload.doTransaction(db, null));
+    }
+    assertTrue(reads.stream().anyMatch(keynum -> keynum >= 10), "no read of a record inserted during the run");
+  }
+
+  @Test
+  public void seededRunsReplay() throws Exception {
+    List<String> first = seededRun("42");
+    assertEquals(first.size(), 200);
+    assertEquals(seededRun("42"), first);
+    assertNotEquals(seededRun("43"), first);
+  }
+
+  /**
+   * Runs 200 transactions in a new thread, since the random stream belongs to the thread.
+   */
+  private static List<String> seededRun(String seed) throws Exception {
+    final Properties p = new Properties();
+    p.setProperty(Client.RECORD_COUNT_PROPERTY, "1000");
+    p.setProperty(Client.OPERATION_COUNT_PROPERTY, "200");
+    p.setProperty(CoreWorkload.READ_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.UPDATE_PROPORTION_PROPERTY, "0.5");
+    p.setProperty(CoreWorkload.READ_ALL_FIELDS_PROPERTY, "false");
+    p.setProperty(CoreWorkload.RANDOM_SEED_PROPERTY, seed);
+    Measurements.setProperties(p);
+    final List<String> operations = new ArrayList<>();
+    final DB db = new DB() {
+      @Override
+      public Status read(String table, String key, Set<String> fields, Map<String, ByteIterator> result) {
+        operations.add("read " + key + " " + fields);
+        return Status.OK;
+      }
+
+      @Override
+      public Status scan(String table, String startkey, int recordcount, Set<String> fields,
+                         Vector<HashMap<String, ByteIterator>> result) {
+        return Status.OK;
+      }
+
+      @Override
+      public Status update(String table, String key, Map<String, ByteIterator> values) {
+        for (Map.Entry<String, ByteIterator> value : values.entrySet()) {
+          operations.add("update " + key + " " + value.getKey() + "=" + value.getValue());
+        }
+        return Status.OK;
+      }
+
+      @Override
+      public Status insert(String table, String key, Map<String, ByteIterator> values) {
+        return Status.OK;
+      }
+
+      @Override
+      public Status delete(String table, String key) {
+        return Status.OK;
+      }
+    };
+    final Exception[] failure = new Exception[1];
+    Thread thread = new Thread(() -> {
+      try {
+        CoreWorkload workload = new CoreWorkload();
+        workload.init(p);
+        Object state = workload.initThread(p, 0, 1);
+        for (int i = 0; i < 200; i++) {
+          workload.doTransaction(db, state);
+        }
+      } catch (Exception e) {
+        failure[0] = e;
+      }
+    });
+    thread.start();
+    thread.join();
+    if (failure[0] != null) {
+      throw failure[0];
+    }
+    return operations;
+  }
+}
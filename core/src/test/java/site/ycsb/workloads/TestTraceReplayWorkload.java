@@ -0,0 +1,97 @@
+/**
+ * Copyright (c) 2020 YCSB contributors. All rights reserved.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you
+ * may not use this file except in compliance with the License. You
+ * may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or
+ * implied. See the License for the specific language governing
+ * permissions and limitations under the License. See accompanying
+ * LICENSE file.
+ */
+
+package site.ycsb.workloads;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+import site.ycsb.generator.BinaryTrace;
+import site.ycsb.measurements.Measurements;
+
+public class TestTraceReplayWorkload {
+
+  @Test
+  public void threadsPartitionTheTrace() throws Exception {
+    Path binary = Files.createTempFile("trace", ".bin");
+    try {
+      try (BinaryTrace.Writer writer = new BinaryTrace.Writer(binary, false)) {
+        for (int i = 0; i < 10000; i++) {
+          writer.write(BinaryTrace.INSERT, i, 10, 0);
+        }
+      }
+
+      Properties p = new Properties();
+      p.setProperty(TraceReplayWorkload.TRACE_FILE_PROPERTY, binary.toString());
+      Measurements.setProperties(p);
+      TraceReplayWorkload workload = new TraceReplayWorkload();
+      workload.init(p);
+      TestTimeSeriesWorkload.MockDB db = new TestTimeSeriesWorkload.MockDB();
+      int operations = 0;
+      for (int thread = 0; thread < 3; thread++) {
+        Object state = workload.initThread(p, thread, 3);
+        while (workload.doTransaction(db, state)) {
+          operations++;
+        }
+      }
+      workload.cleanup();
+      assertEquals(operations, 10000);
+      assertEquals(db.keys.get(0), "user0");
+      assertEquals(db.keys.get(1), "user3");
+      assertEquals(db.keys.get(3334), "user1");
+    } finally {
+      Files.delete(binary);
+    }
+  }
+
+  @Test
+  public void recordedPacing() throws Exception {
+    Path binary = Files.createTempFile("trace", ".bin");
+    try {
+      try (BinaryTrace.Writer writer = new BinaryTrace.Writer(binary, true)) {
+        writer.write(BinaryTrace.INSERT, 1, 10, 5000000);
+        writer.write(BinaryTrace.INSERT, 2, 10, 5200000);
+      }
+
+      Properties p = new Properties();
+      p.setProperty(TraceReplayWorkload.TRACE_FILE_PROPERTY, binary.toString());
+      p.setProperty(TraceReplayWorkload.TRACE_PACING_PROPERTY, "recorded");
+      p.setProperty(TraceReplayWorkload.TRACE_SPEEDUP_PROPERTY, "2");
+      Measurements.setProperties(p);
+      TraceReplayWorkload workload = new TraceReplayWorkload();
+      workload.init(p);
+      TestTimeSeriesWorkload.MockDB db = new TestTimeSeriesWorkload.MockDB();
+      Object state = workload.initThread(p, 0, 1);
+      long start = System.nanoTime();
+      assertTrue(workload.doTransaction(db, state));
+      assertTrue(workload.doTransaction(db, state));
+      long elapsed = System.nanoTime() - start;
+      workload.cleanup();
+      // 200ms apart in the trace, replayed twice as fast
+      assertTrue(elapsed >= 100000000L, "elapsed " + elapsed);
+      assertEquals(db.keys.size(), 2);
+    } finally {
+      Files.delete(binary);
+    }
+  }
+}